@@ -27,14 +27,28 @@ import io.lunamc.common.json.JsonMapper;
 import io.lunamc.common.login.encryption.EncryptionFactory;
 import io.lunamc.common.login.session.SessionClient;
 import io.lunamc.common.server.Server;
+import io.lunamc.plugins.netty.compression.CompressionExecutor;
+import io.lunamc.plugins.netty.compression.DefaultCompressionExecutor;
 import io.lunamc.plugins.netty.config.ServerConfiguration;
 import io.lunamc.plugins.netty.netty.DefaultGlobalEventExecutorController;
 import io.lunamc.plugins.netty.netty.EventLoopGroupHolder;
 import io.lunamc.plugins.netty.config.DefaultServerConfiguration;
+import io.lunamc.plugins.netty.host.DefaultVirtualHostCache;
+import io.lunamc.plugins.netty.host.VirtualHostCache;
+import io.lunamc.plugins.netty.login.DefaultLoginAdmission;
+import io.lunamc.plugins.netty.login.LoginAdmission;
+import io.lunamc.plugins.netty.login.encryption.CryptoExecutor;
+import io.lunamc.plugins.netty.login.encryption.DefaultCryptoExecutor;
 import io.lunamc.plugins.netty.login.session.NettySessionClient;
+import io.lunamc.plugins.netty.metrics.DefaultNetworkMetrics;
+import io.lunamc.plugins.netty.metrics.NetworkMetrics;
 import io.lunamc.plugins.netty.netty.DefaultEventLoopGroupHolder;
 import io.lunamc.plugins.netty.netty.GlobalEventExecutorController;
 import io.lunamc.plugins.netty.server.NettyServer;
+import io.lunamc.plugins.netty.shaping.DefaultTrafficShaper;
+import io.lunamc.plugins.netty.shaping.TrafficShaper;
+import io.lunamc.plugins.netty.status.DefaultStatusResponseCache;
+import io.lunamc.plugins.netty.status.StatusResponseCache;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.netty.util.internal.logging.Slf4JLoggerFactory;
 import org.slf4j.Logger;
@@ -67,18 +81,40 @@ public class NettyPlugin extends PluginAdapter {
         serviceRegistry.setService(GlobalEventExecutorController.class, new DefaultGlobalEventExecutorController());
         ServiceRegistration<JsonMapper> jsonMapper = serviceRegistry.getService(JsonMapper.class);
         ServiceRegistration<ServerConfiguration> config = serviceRegistry.setService(ServerConfiguration.class, loadConfiguration(context));
-        ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder = serviceRegistry.setService(EventLoopGroupHolder.class, new DefaultEventLoopGroupHolder());
+        ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder = serviceRegistry.setService(EventLoopGroupHolder.class, new DefaultEventLoopGroupHolder(config));
         ServiceRegistration<SessionClient> sessionClient = serviceRegistry.setService(SessionClient.class, new NettySessionClient(
+                config,
                 eventLoopGroupHolder,
                 jsonMapper
         ));
+        ServiceRegistration<StatusResponseCache> statusResponseCache = serviceRegistry.setService(StatusResponseCache.class, new DefaultStatusResponseCache(
+                config,
+                jsonMapper
+        ));
+        ServiceRegistration<CryptoExecutor> cryptoExecutor = serviceRegistry.setService(CryptoExecutor.class, new DefaultCryptoExecutor(config));
+        ServiceRegistration<CompressionExecutor> compressionExecutor = serviceRegistry.setService(CompressionExecutor.class, new DefaultCompressionExecutor(config));
+        ServiceRegistration<LoginAdmission> loginAdmission = serviceRegistry.setService(LoginAdmission.class, new DefaultLoginAdmission(config));
+        ServiceRegistration<VirtualHostCache> virtualHostCache = serviceRegistry.setService(VirtualHostCache.class, new DefaultVirtualHostCache(
+                config,
+                serviceRegistry.getService(VirtualHostManager.class)
+        ));
+        ServiceRegistration<NetworkMetrics> networkMetrics = serviceRegistry.setService(NetworkMetrics.class, new DefaultNetworkMetrics());
+        ServiceRegistration<TrafficShaper> trafficShaper = serviceRegistry.setService(TrafficShaper.class, new DefaultTrafficShaper(
+                config,
+                eventLoopGroupHolder
+        ));
         serviceRegistry.setService(Server.class, new NettyServer(
                 config,
                 eventLoopGroupHolder,
                 serviceRegistry.getService(EncryptionFactory.class),
-                jsonMapper,
-                serviceRegistry.getService(VirtualHostManager.class),
-                sessionClient
+                statusResponseCache,
+                virtualHostCache,
+                sessionClient,
+                cryptoExecutor,
+                compressionExecutor,
+                loginAdmission,
+                networkMetrics,
+                trafficShaper
         ));
     }
 
@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.cipher;
+
+import io.lunamc.plugins.netty.utils.SelectableImplementation;
+
+import javax.crypto.SecretKey;
+
+/**
+ * An implementation of AES/CFB8 used to encrypt the connections of players by the fused packet codec (see
+ * {@link io.lunamc.plugins.netty.handler.PacketCodec}). Besides {@link JceCipherEngine} engines are discovered using
+ * {@link java.util.ServiceLoader}, so a native implementation can be provided by an additional plugin or library.
+ */
+public interface CipherEngine extends SelectableImplementation {
+
+    /**
+     * Creates a new cipher using the shared secret as key and initialization vector.
+     *
+     * @param secret The shared secret
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @return The new cipher
+     */
+    PacketCipher createCipher(SecretKey secret, boolean encrypt);
+}
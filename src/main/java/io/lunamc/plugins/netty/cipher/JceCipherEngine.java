@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.cipher;
+
+import io.netty.buffer.ByteBuf;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Uses the {@link Cipher} of the installed security providers. Heap buffers and direct buffers backed by a single
+ * memory region are processed in place, other buffers are copied into a buffer reused by the cipher.
+ */
+public class JceCipherEngine implements CipherEngine {
+
+    public static final JceCipherEngine INSTANCE = new JceCipherEngine();
+    public static final String NAME = "jce";
+    private static final String TRANSFORMATION = "AES/CFB8/NoPadding";
+    private static final int MIN_BUFFER_SIZE = 8192;
+
+    private JceCipherEngine() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Throwable getUnavailabilityCause() {
+        return null;
+    }
+
+    @Override
+    public PacketCipher createCipher(SecretKey secret, boolean encrypt) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, secret, new IvParameterSpec(secret.getEncoded()));
+            return new JcePacketCipher(cipher);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class JcePacketCipher implements PacketCipher {
+
+        private final Cipher cipher;
+        private byte[] buffer;
+
+        private JcePacketCipher(Cipher cipher) {
+            this.cipher = cipher;
+        }
+
+        @Override
+        public void process(ByteBuf buffer, int index, int length) {
+            try {
+                if (buffer.hasArray()) {
+                    byte[] array = buffer.array();
+                    int offset = buffer.arrayOffset() + index;
+                    cipher.update(array, offset, length, array, offset);
+                } else if (buffer.nioBufferCount() == 1) {
+                    ByteBuffer input = buffer.nioBuffer(index, length);
+                    ByteBuffer output = buffer.nioBuffer(index, length);
+                    cipher.update(input, output);
+                } else {
+                    if (this.buffer == null || this.buffer.length < length)
+                        this.buffer = new byte[Math.max(length, MIN_BUFFER_SIZE)];
+                    byte[] bytes = this.buffer;
+                    buffer.getBytes(index, bytes, 0, length);
+                    cipher.update(bytes, 0, length, bytes, 0);
+                    buffer.setBytes(index, bytes, 0, length);
+                }
+            } catch (ShortBufferException e) {
+                // Cannot happen as the output has the same length as the input
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.cipher;
+
+import io.netty.buffer.ByteBuf;
+
+public interface PacketCipher {
+
+    /**
+     * Encrypts or decrypts a region of the buffer in place. AES/CFB8 is a stream cipher, so the state carries over from
+     * one call to the next and the output has the same length as the input.
+     *
+     * @param buffer The buffer (heap or direct)
+     * @param index The index of the first byte
+     * @param length The number of bytes
+     */
+    void process(ByteBuf buffer, int index, int length);
+
+    /**
+     * Releases the resources of this cipher. It must not be used afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+
+import java.util.zip.Deflater;
+
+/**
+ * Decides per packet whether and how hard a connection compresses. The threshold starts at the one negotiated with the
+ * client and is doubled (up to {@link ServerConfiguration.PacketCompression#getMaxThreshold()}) whenever compression
+ * doesn't pay off. It is halved again whenever compression pays off. Clients accept uncompressed packets of any size,
+ * so packets which don't compress well can always be sent uncompressed.
+ * <p>
+ * Instances are used by a single event loop and are not thread safe.
+ */
+public class AdaptiveCompression {
+
+    // Lower bound when raising a threshold of 0 (compress everything)
+    private static final int MIN_RAISED_THRESHOLD = 64;
+
+    private final int threshold;
+    private final int level;
+    private final int minSavings;
+    private final int maxThreshold;
+    private final int busyPendingTasks;
+    private int currentThreshold;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param config The compression configuration
+     * @param threshold The threshold negotiated with the client
+     * @param level The compression level configured for the connection
+     */
+    public AdaptiveCompression(ServerConfiguration.PacketCompression config, int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+        this.minSavings = Math.min(100, config.getMinSavings());
+        this.maxThreshold = Math.max(threshold, config.getMaxThreshold());
+        this.busyPendingTasks = config.getBusyPendingTasks();
+        this.currentThreshold = threshold;
+    }
+
+    /**
+     * Returns the size from which packets are compressed at the moment. It is never lower than the threshold negotiated
+     * with the client.
+     *
+     * @return The current threshold in bytes
+     */
+    public int getThreshold() {
+        return currentThreshold;
+    }
+
+    /**
+     * Returns the compression level to use.
+     *
+     * @param pendingTasks The number of tasks waiting for the event loop of the connection
+     * @return The compression level
+     */
+    public int getLevel(int pendingTasks) {
+        return pendingTasks >= busyPendingTasks ? Deflater.BEST_SPEED : level;
+    }
+
+    /**
+     * Records the result of a compressed packet and adapts the threshold.
+     *
+     * @param length The uncompressed length
+     * @param compressedLength The compressed length
+     * @return {@code true} if compression paid off and the compressed packet should be sent
+     */
+    public boolean record(int length, int compressedLength) {
+        boolean paysOff = (long) compressedLength * 100 <= (long) length * (100 - minSavings);
+        if (paysOff) {
+            currentThreshold = Math.max(threshold, currentThreshold / 2);
+        } else if (length < maxThreshold) {
+            // Packets larger than the maximum threshold say nothing about the smaller ones
+            currentThreshold = Math.min(maxThreshold, Math.max(MIN_RAISED_THRESHOLD, currentThreshold * 2));
+        }
+        return paysOff;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.lunamc.plugins.netty.utils.SelectableImplementation;
+
+/**
+ * An implementation of zlib used by the fused packet codec (see {@link io.lunamc.plugins.netty.handler.PacketCodec}).
+ * Besides {@link JavaCompressionBackend} backends are discovered using {@link java.util.ServiceLoader}, so a native
+ * implementation can be provided by an additional plugin or library.
+ */
+public interface CompressionBackend extends SelectableImplementation {
+
+    /**
+     * Returns if the backend works best on direct buffers. Buffers passed to the compressors and decompressors of this
+     * backend are allocated accordingly, but both kinds of buffers must be supported.
+     *
+     * @return {@code true} if direct buffers are preferred
+     */
+    boolean isDirect();
+
+    /**
+     * Creates a new compressor. A compressor is used by a single thread at a time.
+     *
+     * @return The new compressor
+     */
+    PacketCompressor createCompressor();
+
+    /**
+     * Creates a new decompressor. A decompressor is used by a single thread at a time.
+     *
+     * @return The new decompressor
+     */
+    PacketDecompressor createDecompressor();
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.lunamc.plugins.netty.utils.ImplementationSelector;
+
+import java.util.ServiceLoader;
+
+public class CompressionBackends {
+
+    /**
+     * Name of the automatic backend selection. It chooses the first available backend provided by a
+     * {@link ServiceLoader} and falls back to {@link JavaCompressionBackend}.
+     */
+    public static final String AUTO = ImplementationSelector.AUTO;
+    private static final ImplementationSelector<CompressionBackend> SELECTOR = new ImplementationSelector<>(
+            "compression backend",
+            ImplementationSelector.loadProvided(CompressionBackend.class, "compression backend"),
+            JavaCompressionBackend.INSTANCE
+    );
+
+    private CompressionBackends() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is a utility class and should not be constructed");
+    }
+
+    /**
+     * Selects the backend with the given name (or {@link #AUTO}). See {@link ImplementationSelector#select(String)}.
+     *
+     * @param name The name of the requested backend
+     * @return The selected backend
+     */
+    public static CompressionBackend select(String name) {
+        return SELECTOR.select(name);
+    }
+
+    /**
+     * Returns the selected backend. If no backend was selected yet it will be selected automatically.
+     *
+     * @return The selected backend
+     */
+    public static CompressionBackend get() {
+        return SELECTOR.get();
+    }
+
+    public static CompressionBackend find(String name) {
+        return SELECTOR.find(name);
+    }
+}
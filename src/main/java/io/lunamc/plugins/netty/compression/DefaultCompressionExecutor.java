@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.utils.BoundedExecutor;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+public class DefaultCompressionExecutor implements CompressionExecutor {
+
+    private final ServiceRegistration<ServerConfiguration> config;
+    private volatile BoundedExecutor executor;
+
+    public DefaultCompressionExecutor(ServiceRegistration<ServerConfiguration> config) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null)
+            throw new IllegalStateException("Already started");
+
+        ServerConfiguration config = this.config.requireInstance();
+        ServerConfiguration.PacketCompression compression = config.getPacketCompression();
+        executor = new BoundedExecutor(compression.getOffloadThreads(), compression.getOffloadQueueSize(), config.getEventLoop().getThreadNamePrefix() + "-compression");
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        BoundedExecutor executor = this.executor;
+        if (executor == null)
+            return BoundedExecutor.notRunning("compression");
+        return executor.submit(task);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        BoundedExecutor executor = this.executor;
+        if (executor == null)
+            return;
+        this.executor = null;
+        executor.shutdown();
+    }
+}
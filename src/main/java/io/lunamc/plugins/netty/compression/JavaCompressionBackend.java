@@ -0,0 +1,254 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Uses {@link Deflater} and {@link Inflater} of the JDK. Since Java 11 they accept {@link ByteBuffer}s, so direct
+ * buffers are passed to zlib without copying. On older runtimes the content of direct buffers is copied into a buffer
+ * reused by the compressor or decompressor and heap buffers are preferred.
+ */
+public class JavaCompressionBackend implements CompressionBackend {
+
+    public static final JavaCompressionBackend INSTANCE = new JavaCompressionBackend();
+    public static final String NAME = "java";
+    private static final int MIN_BUFFER_SIZE = 8192;
+    private static final MethodHandle DEFLATER_SET_INPUT;
+    private static final MethodHandle DEFLATER_DEFLATE;
+    private static final MethodHandle INFLATER_SET_INPUT;
+    private static final MethodHandle INFLATER_INFLATE;
+
+    static {
+        MethodHandle deflaterSetInput;
+        MethodHandle deflaterDeflate;
+        MethodHandle inflaterSetInput;
+        MethodHandle inflaterInflate;
+        try {
+            // The ByteBuffer methods were added in Java 11 and this plugin is compiled for Java 8
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            deflaterSetInput = lookup.findVirtual(Deflater.class, "setInput", MethodType.methodType(void.class, ByteBuffer.class));
+            deflaterDeflate = lookup.findVirtual(Deflater.class, "deflate", MethodType.methodType(int.class, ByteBuffer.class));
+            inflaterSetInput = lookup.findVirtual(Inflater.class, "setInput", MethodType.methodType(void.class, ByteBuffer.class));
+            inflaterInflate = lookup.findVirtual(Inflater.class, "inflate", MethodType.methodType(int.class, ByteBuffer.class));
+        } catch (NoSuchMethodException | IllegalAccessException ignore) {
+            deflaterSetInput = deflaterDeflate = inflaterSetInput = inflaterInflate = null;
+        }
+        DEFLATER_SET_INPUT = deflaterSetInput;
+        DEFLATER_DEFLATE = deflaterDeflate;
+        INFLATER_SET_INPUT = inflaterSetInput;
+        INFLATER_INFLATE = inflaterInflate;
+    }
+
+    private JavaCompressionBackend() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Throwable getUnavailabilityCause() {
+        return null;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return DEFLATER_SET_INPUT != null;
+    }
+
+    @Override
+    public PacketCompressor createCompressor() {
+        return new JavaPacketCompressor();
+    }
+
+    @Override
+    public PacketDecompressor createDecompressor() {
+        return new JavaPacketDecompressor();
+    }
+
+    private static byte[] ensureSize(byte[] buffer, int length) {
+        return buffer == null || buffer.length < length ? new byte[Math.max(length, MIN_BUFFER_SIZE)] : buffer;
+    }
+
+    private static boolean isNioAccessible(ByteBuf buffer) {
+        return DEFLATER_SET_INPUT != null && buffer.nioBufferCount() == 1;
+    }
+
+    private static RuntimeException propagate(Throwable throwable) {
+        if (throwable instanceof RuntimeException)
+            return (RuntimeException) throwable;
+        if (throwable instanceof Error)
+            throw (Error) throwable;
+        return new IllegalStateException(throwable);
+    }
+
+    private static class JavaPacketCompressor implements PacketCompressor {
+
+        private final Deflater deflater = new Deflater();
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        private byte[] inputBuffer;
+        private byte[] outputBuffer;
+
+        @Override
+        public int compress(ByteBuf in, ByteBuf out, int level) {
+            if (level != this.level) {
+                deflater.setLevel(level);
+                this.level = level;
+            }
+            int length = in.readableBytes();
+            if (in.hasArray()) {
+                deflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), length);
+            } else if (isNioAccessible(in)) {
+                setInput(in.nioBuffer(in.readerIndex(), length));
+            } else {
+                inputBuffer = ensureSize(inputBuffer, length);
+                in.getBytes(in.readerIndex(), inputBuffer, 0, length);
+                deflater.setInput(inputBuffer, 0, length);
+            }
+            deflater.finish();
+
+            int start = out.writerIndex();
+            try {
+                if (out.hasArray()) {
+                    out.ensureWritable(PacketCompressor.maxCompressedLength(length));
+                    while (!deflater.finished()) {
+                        if (!out.isWritable())
+                            out.ensureWritable(out.capacity());
+                        int written = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+                        out.writerIndex(out.writerIndex() + written);
+                    }
+                } else if (isNioAccessible(out)) {
+                    out.ensureWritable(PacketCompressor.maxCompressedLength(length));
+                    while (!deflater.finished()) {
+                        if (!out.isWritable())
+                            out.ensureWritable(out.capacity());
+                        int written = deflate(out.internalNioBuffer(out.writerIndex(), out.writableBytes()));
+                        out.writerIndex(out.writerIndex() + written);
+                    }
+                } else {
+                    outputBuffer = ensureSize(outputBuffer, PacketCompressor.maxCompressedLength(length));
+                    while (!deflater.finished()) {
+                        int written = deflater.deflate(outputBuffer);
+                        out.writeBytes(outputBuffer, 0, written);
+                    }
+                }
+            } finally {
+                deflater.reset();
+            }
+            return out.writerIndex() - start;
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+        }
+
+        private void setInput(ByteBuffer input) {
+            try {
+                DEFLATER_SET_INPUT.invokeExact(deflater, input);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        private int deflate(ByteBuffer output) {
+            try {
+                return (int) DEFLATER_DEFLATE.invokeExact(deflater, output);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+    }
+
+    private static class JavaPacketDecompressor implements PacketDecompressor {
+
+        private final Inflater inflater = new Inflater();
+        private byte[] inputBuffer;
+        private byte[] outputBuffer;
+
+        @Override
+        public void decompress(ByteBuf in, int length, ByteBuf out, int uncompressedLength) throws DataFormatException {
+            if (in.hasArray()) {
+                inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), length);
+            } else if (isNioAccessible(in)) {
+                setInput(in.nioBuffer(in.readerIndex(), length));
+            } else {
+                inputBuffer = ensureSize(inputBuffer, length);
+                in.getBytes(in.readerIndex(), inputBuffer, 0, length);
+                inflater.setInput(inputBuffer, 0, length);
+            }
+
+            try {
+                out.ensureWritable(uncompressedLength);
+                int inflated;
+                if (out.hasArray()) {
+                    inflated = inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), uncompressedLength);
+                    out.writerIndex(out.writerIndex() + inflated);
+                } else if (isNioAccessible(out)) {
+                    inflated = inflate(out.internalNioBuffer(out.writerIndex(), uncompressedLength));
+                    out.writerIndex(out.writerIndex() + inflated);
+                } else {
+                    outputBuffer = ensureSize(outputBuffer, uncompressedLength);
+                    inflated = inflater.inflate(outputBuffer, 0, uncompressedLength);
+                    out.writeBytes(outputBuffer, 0, inflated);
+                }
+                if (inflated != uncompressedLength || !inflater.finished())
+                    throw new DataFormatException("Compressed packet does not match its uncompressed length of " + uncompressedLength + " bytes");
+            } finally {
+                inflater.reset();
+            }
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+
+        private void setInput(ByteBuffer input) {
+            try {
+                INFLATER_SET_INPUT.invokeExact(inflater, input);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        private int inflate(ByteBuffer output) throws DataFormatException {
+            try {
+                return (int) INFLATER_INFLATE.invokeExact(inflater, output);
+            } catch (DataFormatException e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+    }
+}
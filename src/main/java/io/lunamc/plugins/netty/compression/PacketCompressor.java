@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+
+public interface PacketCompressor {
+
+    /**
+     * Compresses the readable bytes of {@code in} using the zlib format and writes the result to {@code out}. The
+     * reader index of {@code in} is not changed and {@code out} is expanded if needed.
+     *
+     * @param in The uncompressed packet
+     * @param out The buffer the compressed packet is written to
+     * @param level The compression level ({@code 0} - {@code 9})
+     * @return The number of bytes written to {@code out}
+     */
+    int compress(ByteBuf in, ByteBuf out, int level);
+
+    /**
+     * Releases the resources of this compressor. It must not be used afterwards.
+     */
+    void close();
+
+    /**
+     * Returns the maximum size of {@code length} compressed bytes. It's the same bound as zlib's
+     * {@code deflateBound()} for the default window and memory level.
+     *
+     * @param length The uncompressed length
+     * @return The maximum compressed length
+     */
+    static int maxCompressedLength(int length) {
+        return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.zip.DataFormatException;
+
+public interface PacketDecompressor {
+
+    /**
+     * Decompresses {@code length} bytes of {@code in} (starting at its reader index) and writes the result to
+     * {@code out}. The reader index of {@code in} is not changed.
+     *
+     * @param in The buffer containing the compressed packet
+     * @param length The compressed length
+     * @param out The buffer the uncompressed packet is written to
+     * @param uncompressedLength The expected uncompressed length
+     * @throws DataFormatException If the packet is malformed or its uncompressed length doesn't match
+     */
+    void decompress(ByteBuf in, int length, ByteBuf out, int uncompressedLength) throws DataFormatException;
+
+    /**
+     * Releases the resources of this decompressor. It must not be used afterwards.
+     */
+    void close();
+}
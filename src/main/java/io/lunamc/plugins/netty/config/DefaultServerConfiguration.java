@@ -24,20 +24,64 @@ import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
-@XmlRootElement(namespace = "http://lunamc.io/server/1.0", name = "server")
+@XmlRootElement(namespace = DefaultServerConfiguration.NAMESPACE, name = "server")
 @XmlAccessorType(XmlAccessType.FIELD)
 public class DefaultServerConfiguration implements ServerConfiguration {
 
+    static final String NAMESPACE = "http://lunamc.io/server/1.0";
     private static final int DEFAULT_PORT = 25565;
     private static final int DEFAULT_TIMEOUT = 30;
+    private static final int DEFAULT_ACCEPTORS = 1;
+    private static final long DEFAULT_STATUS_CACHE_TTL = 1000;
+    private static final long DEFAULT_VIRTUAL_HOST_CACHE_TTL = 5000;
+    private static final String DEFAULT_CIPHER_ENGINE = "auto";
 
-    @XmlElement(namespace = "http://lunamc.io/server/1.0", name = "port")
+    @XmlElement(namespace = NAMESPACE, name = "port")
     private int port = DEFAULT_PORT;
 
-    @XmlElement(namespace = "http://lunamc.io/server/1.0", name = "timeout")
+    @XmlElement(namespace = NAMESPACE, name = "timeout")
     private int timeout = DEFAULT_TIMEOUT;
 
+    @XmlElement(namespace = NAMESPACE, name = "acceptors")
+    private int acceptors = DEFAULT_ACCEPTORS;
+
+    @XmlElement(namespace = NAMESPACE, name = "statusCacheTtl")
+    private long statusCacheTtl = DEFAULT_STATUS_CACHE_TTL;
+
+    @XmlElement(namespace = NAMESPACE, name = "virtualHostCacheTtl")
+    private long virtualHostCacheTtl = DEFAULT_VIRTUAL_HOST_CACHE_TTL;
+
+    @XmlElement(namespace = NAMESPACE, name = "fusedCodec")
+    private boolean fusedCodec;
+
+    @XmlElement(namespace = NAMESPACE, name = "cipherEngine")
+    private String cipherEngine = DEFAULT_CIPHER_ENGINE;
+
+    @XmlElement(namespace = NAMESPACE, name = "eventLoop")
+    private DefaultEventLoop eventLoop = new DefaultEventLoop();
+
+    @XmlElement(namespace = NAMESPACE, name = "childOptions")
+    private DefaultChildOptions childOptions = new DefaultChildOptions();
+
+    @XmlElement(namespace = NAMESPACE, name = "login")
+    private DefaultLogin login = new DefaultLogin();
+
+    @XmlElement(namespace = NAMESPACE, name = "session")
+    private DefaultSession session = new DefaultSession();
+
+    @XmlElement(namespace = NAMESPACE, name = "connectionThrottle")
+    private DefaultConnectionThrottle connectionThrottle = new DefaultConnectionThrottle();
+
+    @XmlElement(namespace = NAMESPACE, name = "trafficShaping")
+    private DefaultTrafficShaping trafficShaping = new DefaultTrafficShaping();
+
+    @XmlElement(namespace = NAMESPACE, name = "packetCompression")
+    private DefaultPacketCompression packetCompression = new DefaultPacketCompression();
+
     @Override
     public int getPort() {
         return port;
@@ -56,6 +100,114 @@ public class DefaultServerConfiguration implements ServerConfiguration {
         this.timeout = timeout;
     }
 
+    @Override
+    public DefaultChildOptions getChildOptions() {
+        return childOptions;
+    }
+
+    public void setChildOptions(DefaultChildOptions childOptions) {
+        this.childOptions = childOptions;
+    }
+
+    @Override
+    public DefaultLogin getLogin() {
+        return login;
+    }
+
+    public void setLogin(DefaultLogin login) {
+        this.login = login;
+    }
+
+    @Override
+    public DefaultSession getSession() {
+        return session;
+    }
+
+    public void setSession(DefaultSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    public void setAcceptors(int acceptors) {
+        this.acceptors = acceptors;
+    }
+
+    @Override
+    public long getStatusCacheTtl() {
+        return statusCacheTtl;
+    }
+
+    public void setStatusCacheTtl(long statusCacheTtl) {
+        this.statusCacheTtl = statusCacheTtl;
+    }
+
+    @Override
+    public long getVirtualHostCacheTtl() {
+        return virtualHostCacheTtl;
+    }
+
+    public void setVirtualHostCacheTtl(long virtualHostCacheTtl) {
+        this.virtualHostCacheTtl = virtualHostCacheTtl;
+    }
+
+    @Override
+    public boolean isFusedCodec() {
+        return fusedCodec;
+    }
+
+    public void setFusedCodec(boolean fusedCodec) {
+        this.fusedCodec = fusedCodec;
+    }
+
+    @Override
+    public String getCipherEngine() {
+        return cipherEngine;
+    }
+
+    public void setCipherEngine(String cipherEngine) {
+        this.cipherEngine = cipherEngine;
+    }
+
+    @Override
+    public DefaultEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    public void setEventLoop(DefaultEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    @Override
+    public DefaultConnectionThrottle getConnectionThrottle() {
+        return connectionThrottle;
+    }
+
+    public void setConnectionThrottle(DefaultConnectionThrottle connectionThrottle) {
+        this.connectionThrottle = connectionThrottle;
+    }
+
+    @Override
+    public DefaultTrafficShaping getTrafficShaping() {
+        return trafficShaping;
+    }
+
+    public void setTrafficShaping(DefaultTrafficShaping trafficShaping) {
+        this.trafficShaping = trafficShaping;
+    }
+
+    @Override
+    public DefaultPacketCompression getPacketCompression() {
+        return packetCompression;
+    }
+
+    public void setPacketCompression(DefaultPacketCompression packetCompression) {
+        this.packetCompression = packetCompression;
+    }
+
     public static DefaultServerConfiguration load(InputStream input) {
         try {
             JAXBContext jaxbContext = JAXBContext.newInstance(DefaultServerConfiguration.class);
@@ -65,4 +217,726 @@ public class DefaultServerConfiguration implements ServerConfiguration {
             throw new RuntimeException(e);
         }
     }
+
+    static List<Integer> parseCpuList(String cpuList) {
+        if (cpuList == null || cpuList.trim().isEmpty())
+            return Collections.emptyList();
+        List<Integer> result = new ArrayList<>();
+        for (String part : cpuList.split(",")) {
+            part = part.trim();
+            int separator = part.indexOf('-');
+            if (separator < 0) {
+                result.add(Integer.parseInt(part));
+            } else {
+                int from = Integer.parseInt(part.substring(0, separator).trim());
+                int to = Integer.parseInt(part.substring(separator + 1).trim());
+                if (from > to)
+                    throw new IllegalArgumentException("Invalid cpu range " + part);
+                for (int cpu = from; cpu <= to; cpu++)
+                    result.add(cpu);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultEventLoop implements EventLoop {
+
+        private static final String DEFAULT_TRANSPORT = "auto";
+        private static final int DEFAULT_BOSS_THREADS = 1;
+        private static final int DEFAULT_WORKER_THREADS = 0;
+        private static final int DEFAULT_IO_RATIO = 50;
+        private static final String DEFAULT_THREAD_NAME_PREFIX = "luna-netty";
+
+        @XmlElement(namespace = NAMESPACE, name = "transport")
+        private String transport = DEFAULT_TRANSPORT;
+
+        @XmlElement(namespace = NAMESPACE, name = "bossThreads")
+        private int bossThreads = DEFAULT_BOSS_THREADS;
+
+        @XmlElement(namespace = NAMESPACE, name = "workerThreads")
+        private int workerThreads = DEFAULT_WORKER_THREADS;
+
+        @XmlElement(namespace = NAMESPACE, name = "ioRatio")
+        private int ioRatio = DEFAULT_IO_RATIO;
+
+        @XmlElement(namespace = NAMESPACE, name = "threadNamePrefix")
+        private String threadNamePrefix = DEFAULT_THREAD_NAME_PREFIX;
+
+        @XmlElement(namespace = NAMESPACE, name = "cpuAffinity")
+        private String cpuAffinity;
+
+        @Override
+        public String getTransport() {
+            return transport;
+        }
+
+        public void setTransport(String transport) {
+            this.transport = transport;
+        }
+
+        @Override
+        public int getBossThreads() {
+            return bossThreads;
+        }
+
+        public void setBossThreads(int bossThreads) {
+            this.bossThreads = bossThreads;
+        }
+
+        @Override
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        @Override
+        public int getIoRatio() {
+            return ioRatio;
+        }
+
+        public void setIoRatio(int ioRatio) {
+            this.ioRatio = ioRatio;
+        }
+
+        @Override
+        public String getThreadNamePrefix() {
+            return threadNamePrefix;
+        }
+
+        public void setThreadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public List<Integer> getCpuAffinity() {
+            return parseCpuList(cpuAffinity);
+        }
+
+        public void setCpuAffinity(String cpuAffinity) {
+            this.cpuAffinity = cpuAffinity;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultChildOptions implements ChildOptions {
+
+        @XmlElement(namespace = NAMESPACE, name = "tcpNoDelay")
+        private boolean tcpNoDelay = true;
+
+        @XmlElement(namespace = NAMESPACE, name = "keepAlive")
+        private boolean keepAlive;
+
+        @XmlElement(namespace = NAMESPACE, name = "sendBufferSize")
+        private int sendBufferSize;
+
+        @XmlElement(namespace = NAMESPACE, name = "receiveBufferSize")
+        private int receiveBufferSize;
+
+        @XmlElement(namespace = NAMESPACE, name = "tcpQuickAck")
+        private Boolean tcpQuickAck;
+
+        @XmlElement(namespace = NAMESPACE, name = "tcpUserTimeout")
+        private int tcpUserTimeout;
+
+        @XmlElement(namespace = NAMESPACE, name = "busyPoll")
+        private int busyPoll;
+
+        @Override
+        public boolean isTcpNoDelay() {
+            return tcpNoDelay;
+        }
+
+        public void setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+        }
+
+        @Override
+        public boolean isKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        public int getSendBufferSize() {
+            return sendBufferSize;
+        }
+
+        public void setSendBufferSize(int sendBufferSize) {
+            this.sendBufferSize = sendBufferSize;
+        }
+
+        @Override
+        public int getReceiveBufferSize() {
+            return receiveBufferSize;
+        }
+
+        public void setReceiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        @Override
+        public Boolean getTcpQuickAck() {
+            return tcpQuickAck;
+        }
+
+        public void setTcpQuickAck(Boolean tcpQuickAck) {
+            this.tcpQuickAck = tcpQuickAck;
+        }
+
+        @Override
+        public int getTcpUserTimeout() {
+            return tcpUserTimeout;
+        }
+
+        public void setTcpUserTimeout(int tcpUserTimeout) {
+            this.tcpUserTimeout = tcpUserTimeout;
+        }
+
+        @Override
+        public int getBusyPoll() {
+            return busyPoll;
+        }
+
+        public void setBusyPoll(int busyPoll) {
+            this.busyPoll = busyPoll;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultLogin implements Login {
+
+        private static final int DEFAULT_CRYPTO_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        private static final int DEFAULT_CRYPTO_QUEUE_SIZE = 1024;
+        private static final int DEFAULT_MAX_CONCURRENT_LOGINS = 0;
+        private static final int DEFAULT_MAX_QUEUED_LOGINS = 1024;
+        private static final int DEFAULT_QUEUE_TIMEOUT = 25;
+
+        @XmlElement(namespace = NAMESPACE, name = "cryptoThreads")
+        private int cryptoThreads = DEFAULT_CRYPTO_THREADS;
+
+        @XmlElement(namespace = NAMESPACE, name = "cryptoQueueSize")
+        private int cryptoQueueSize = DEFAULT_CRYPTO_QUEUE_SIZE;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxConcurrentLogins")
+        private int maxConcurrentLogins = DEFAULT_MAX_CONCURRENT_LOGINS;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxQueuedLogins")
+        private int maxQueuedLogins = DEFAULT_MAX_QUEUED_LOGINS;
+
+        @XmlElement(namespace = NAMESPACE, name = "queueTimeout")
+        private int queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+
+        @XmlElement(namespace = NAMESPACE, name = "perAddressFairness")
+        private boolean perAddressFairness = true;
+
+        @Override
+        public int getCryptoThreads() {
+            return cryptoThreads;
+        }
+
+        public void setCryptoThreads(int cryptoThreads) {
+            this.cryptoThreads = cryptoThreads;
+        }
+
+        @Override
+        public int getCryptoQueueSize() {
+            return cryptoQueueSize;
+        }
+
+        public void setCryptoQueueSize(int cryptoQueueSize) {
+            this.cryptoQueueSize = cryptoQueueSize;
+        }
+
+        @Override
+        public int getMaxConcurrentLogins() {
+            return maxConcurrentLogins;
+        }
+
+        public void setMaxConcurrentLogins(int maxConcurrentLogins) {
+            this.maxConcurrentLogins = maxConcurrentLogins;
+        }
+
+        @Override
+        public int getMaxQueuedLogins() {
+            return maxQueuedLogins;
+        }
+
+        public void setMaxQueuedLogins(int maxQueuedLogins) {
+            this.maxQueuedLogins = maxQueuedLogins;
+        }
+
+        @Override
+        public int getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(int queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+
+        @Override
+        public boolean isPerAddressFairness() {
+            return perAddressFairness;
+        }
+
+        public void setPerAddressFairness(boolean perAddressFairness) {
+            this.perAddressFairness = perAddressFairness;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultSession implements Session {
+
+        private static final int DEFAULT_REQUEST_TIMEOUT = 5000;
+        private static final int DEFAULT_MAX_RETRIES = 2;
+        private static final int DEFAULT_RETRY_BACKOFF = 250;
+        private static final int DEFAULT_HEDGE_PERCENTILE = 0;
+        private static final int DEFAULT_HEDGE_MIN_DELAY = 100;
+        private static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 10;
+        private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_TIME = 30000;
+        private static final String DEFAULT_URL = "https://sessionserver.mojang.com/session/minecraft/hasJoined";
+        private static final int DEFAULT_MAX_CONNECTIONS = 0;
+        private static final int DEFAULT_POOLED_CONNECTION_IDLE_TIMEOUT = 60000;
+        private static final int DEFAULT_CONNECTION_TTL = 0;
+        private static final int DEFAULT_PREWARM_CONNECTIONS = 0;
+
+        @XmlElement(namespace = NAMESPACE, name = "requestTimeout")
+        private int requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxRetries")
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+
+        @XmlElement(namespace = NAMESPACE, name = "retryBackoff")
+        private int retryBackoff = DEFAULT_RETRY_BACKOFF;
+
+        @XmlElement(namespace = NAMESPACE, name = "hedgePercentile")
+        private int hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+
+        @XmlElement(namespace = NAMESPACE, name = "hedgeMinDelay")
+        private int hedgeMinDelay = DEFAULT_HEDGE_MIN_DELAY;
+
+        @XmlElement(namespace = NAMESPACE, name = "circuitBreakerThreshold")
+        private int circuitBreakerThreshold = DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+
+        @XmlElement(namespace = NAMESPACE, name = "circuitBreakerOpenTime")
+        private int circuitBreakerOpenTime = DEFAULT_CIRCUIT_BREAKER_OPEN_TIME;
+
+        @XmlElement(namespace = NAMESPACE, name = "url")
+        private String url = DEFAULT_URL;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxConnections")
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+        @XmlElement(namespace = NAMESPACE, name = "pooledConnectionIdleTimeout")
+        private int pooledConnectionIdleTimeout = DEFAULT_POOLED_CONNECTION_IDLE_TIMEOUT;
+
+        @XmlElement(namespace = NAMESPACE, name = "connectionTtl")
+        private int connectionTtl = DEFAULT_CONNECTION_TTL;
+
+        @XmlElement(namespace = NAMESPACE, name = "prewarmConnections")
+        private int prewarmConnections = DEFAULT_PREWARM_CONNECTIONS;
+
+        @Override
+        public int getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(int requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        @Override
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        @Override
+        public int getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(int retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        @Override
+        public int getHedgePercentile() {
+            return hedgePercentile;
+        }
+
+        public void setHedgePercentile(int hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+        }
+
+        @Override
+        public int getHedgeMinDelay() {
+            return hedgeMinDelay;
+        }
+
+        public void setHedgeMinDelay(int hedgeMinDelay) {
+            this.hedgeMinDelay = hedgeMinDelay;
+        }
+
+        @Override
+        public int getCircuitBreakerThreshold() {
+            return circuitBreakerThreshold;
+        }
+
+        public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+            this.circuitBreakerThreshold = circuitBreakerThreshold;
+        }
+
+        @Override
+        public int getCircuitBreakerOpenTime() {
+            return circuitBreakerOpenTime;
+        }
+
+        public void setCircuitBreakerOpenTime(int circuitBreakerOpenTime) {
+            this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+        }
+
+        @Override
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        @Override
+        public int getPooledConnectionIdleTimeout() {
+            return pooledConnectionIdleTimeout;
+        }
+
+        public void setPooledConnectionIdleTimeout(int pooledConnectionIdleTimeout) {
+            this.pooledConnectionIdleTimeout = pooledConnectionIdleTimeout;
+        }
+
+        @Override
+        public int getConnectionTtl() {
+            return connectionTtl;
+        }
+
+        public void setConnectionTtl(int connectionTtl) {
+            this.connectionTtl = connectionTtl;
+        }
+
+        @Override
+        public int getPrewarmConnections() {
+            return prewarmConnections;
+        }
+
+        public void setPrewarmConnections(int prewarmConnections) {
+            this.prewarmConnections = prewarmConnections;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultConnectionThrottle implements ConnectionThrottle {
+
+        private static final int DEFAULT_RATE = 0;
+        private static final int DEFAULT_BURST = 20;
+        private static final int DEFAULT_MAX_TRACKED_ADDRESSES = 4096;
+        private static final boolean DEFAULT_EXEMPT_LOCAL = true;
+
+        @XmlElement(namespace = NAMESPACE, name = "rate")
+        private int rate = DEFAULT_RATE;
+
+        @XmlElement(namespace = NAMESPACE, name = "burst")
+        private int burst = DEFAULT_BURST;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxTrackedAddresses")
+        private int maxTrackedAddresses = DEFAULT_MAX_TRACKED_ADDRESSES;
+
+        @XmlElement(namespace = NAMESPACE, name = "exemptLocal")
+        private boolean exemptLocal = DEFAULT_EXEMPT_LOCAL;
+
+        @Override
+        public int getRate() {
+            return rate;
+        }
+
+        public void setRate(int rate) {
+            this.rate = rate;
+        }
+
+        @Override
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        @Override
+        public int getMaxTrackedAddresses() {
+            return maxTrackedAddresses;
+        }
+
+        public void setMaxTrackedAddresses(int maxTrackedAddresses) {
+            this.maxTrackedAddresses = maxTrackedAddresses;
+        }
+
+        @Override
+        public boolean isExemptLocal() {
+            return exemptLocal;
+        }
+
+        public void setExemptLocal(boolean exemptLocal) {
+            this.exemptLocal = exemptLocal;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultTrafficShaping implements TrafficShaping {
+
+        private static final boolean DEFAULT_ENABLED = false;
+        private static final long DEFAULT_GLOBAL_READ_LIMIT = 0;
+        private static final long DEFAULT_GLOBAL_WRITE_LIMIT = 0;
+        private static final long DEFAULT_CHANNEL_READ_LIMIT = 0;
+        private static final long DEFAULT_CHANNEL_WRITE_LIMIT = 0;
+        private static final long DEFAULT_ADDRESS_READ_LIMIT = 0;
+        private static final long DEFAULT_ADDRESS_WRITE_LIMIT = 0;
+        private static final long DEFAULT_CHECK_INTERVAL = 1000;
+        private static final long DEFAULT_MAX_TIME = 15000;
+
+        @XmlElement(namespace = NAMESPACE, name = "enabled")
+        private boolean enabled = DEFAULT_ENABLED;
+
+        @XmlElement(namespace = NAMESPACE, name = "globalReadLimit")
+        private long globalReadLimit = DEFAULT_GLOBAL_READ_LIMIT;
+
+        @XmlElement(namespace = NAMESPACE, name = "globalWriteLimit")
+        private long globalWriteLimit = DEFAULT_GLOBAL_WRITE_LIMIT;
+
+        @XmlElement(namespace = NAMESPACE, name = "channelReadLimit")
+        private long channelReadLimit = DEFAULT_CHANNEL_READ_LIMIT;
+
+        @XmlElement(namespace = NAMESPACE, name = "channelWriteLimit")
+        private long channelWriteLimit = DEFAULT_CHANNEL_WRITE_LIMIT;
+
+        @XmlElement(namespace = NAMESPACE, name = "addressReadLimit")
+        private long addressReadLimit = DEFAULT_ADDRESS_READ_LIMIT;
+
+        @XmlElement(namespace = NAMESPACE, name = "addressWriteLimit")
+        private long addressWriteLimit = DEFAULT_ADDRESS_WRITE_LIMIT;
+
+        @XmlElement(namespace = NAMESPACE, name = "checkInterval")
+        private long checkInterval = DEFAULT_CHECK_INTERVAL;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxTime")
+        private long maxTime = DEFAULT_MAX_TIME;
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public long getGlobalReadLimit() {
+            return globalReadLimit;
+        }
+
+        public void setGlobalReadLimit(long globalReadLimit) {
+            this.globalReadLimit = globalReadLimit;
+        }
+
+        @Override
+        public long getGlobalWriteLimit() {
+            return globalWriteLimit;
+        }
+
+        public void setGlobalWriteLimit(long globalWriteLimit) {
+            this.globalWriteLimit = globalWriteLimit;
+        }
+
+        @Override
+        public long getChannelReadLimit() {
+            return channelReadLimit;
+        }
+
+        public void setChannelReadLimit(long channelReadLimit) {
+            this.channelReadLimit = channelReadLimit;
+        }
+
+        @Override
+        public long getChannelWriteLimit() {
+            return channelWriteLimit;
+        }
+
+        public void setChannelWriteLimit(long channelWriteLimit) {
+            this.channelWriteLimit = channelWriteLimit;
+        }
+
+        @Override
+        public long getAddressReadLimit() {
+            return addressReadLimit;
+        }
+
+        public void setAddressReadLimit(long addressReadLimit) {
+            this.addressReadLimit = addressReadLimit;
+        }
+
+        @Override
+        public long getAddressWriteLimit() {
+            return addressWriteLimit;
+        }
+
+        public void setAddressWriteLimit(long addressWriteLimit) {
+            this.addressWriteLimit = addressWriteLimit;
+        }
+
+        @Override
+        public long getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(long checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+
+        @Override
+        public long getMaxTime() {
+            return maxTime;
+        }
+
+        public void setMaxTime(long maxTime) {
+            this.maxTime = maxTime;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class DefaultPacketCompression implements PacketCompression {
+
+        private static final String DEFAULT_BACKEND = "auto";
+        private static final boolean DEFAULT_ADAPTIVE = false;
+        private static final int DEFAULT_MIN_SAVINGS = 10;
+        private static final int DEFAULT_MAX_THRESHOLD = 8192;
+        private static final int DEFAULT_BUSY_PENDING_TASKS = 256;
+        private static final int DEFAULT_OFFLOAD_THRESHOLD = 0;
+        private static final int DEFAULT_OFFLOAD_THREADS = 2;
+        private static final int DEFAULT_OFFLOAD_QUEUE_SIZE = 1024;
+
+        @XmlElement(namespace = NAMESPACE, name = "backend")
+        private String backend = DEFAULT_BACKEND;
+
+        @XmlElement(namespace = NAMESPACE, name = "adaptive")
+        private boolean adaptive = DEFAULT_ADAPTIVE;
+
+        @XmlElement(namespace = NAMESPACE, name = "minSavings")
+        private int minSavings = DEFAULT_MIN_SAVINGS;
+
+        @XmlElement(namespace = NAMESPACE, name = "maxThreshold")
+        private int maxThreshold = DEFAULT_MAX_THRESHOLD;
+
+        @XmlElement(namespace = NAMESPACE, name = "busyPendingTasks")
+        private int busyPendingTasks = DEFAULT_BUSY_PENDING_TASKS;
+
+        @XmlElement(namespace = NAMESPACE, name = "offloadThreshold")
+        private int offloadThreshold = DEFAULT_OFFLOAD_THRESHOLD;
+
+        @XmlElement(namespace = NAMESPACE, name = "offloadThreads")
+        private int offloadThreads = DEFAULT_OFFLOAD_THREADS;
+
+        @XmlElement(namespace = NAMESPACE, name = "offloadQueueSize")
+        private int offloadQueueSize = DEFAULT_OFFLOAD_QUEUE_SIZE;
+
+        @Override
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        @Override
+        public int getMinSavings() {
+            return minSavings;
+        }
+
+        public void setMinSavings(int minSavings) {
+            this.minSavings = minSavings;
+        }
+
+        @Override
+        public int getMaxThreshold() {
+            return maxThreshold;
+        }
+
+        public void setMaxThreshold(int maxThreshold) {
+            this.maxThreshold = maxThreshold;
+        }
+
+        @Override
+        public int getBusyPendingTasks() {
+            return busyPendingTasks;
+        }
+
+        public void setBusyPendingTasks(int busyPendingTasks) {
+            this.busyPendingTasks = busyPendingTasks;
+        }
+
+        @Override
+        public int getOffloadThreshold() {
+            return offloadThreshold;
+        }
+
+        public void setOffloadThreshold(int offloadThreshold) {
+            this.offloadThreshold = offloadThreshold;
+        }
+
+        @Override
+        public int getOffloadThreads() {
+            return offloadThreads;
+        }
+
+        public void setOffloadThreads(int offloadThreads) {
+            this.offloadThreads = offloadThreads;
+        }
+
+        @Override
+        public int getOffloadQueueSize() {
+            return offloadQueueSize;
+        }
+
+        public void setOffloadQueueSize(int offloadQueueSize) {
+            this.offloadQueueSize = offloadQueueSize;
+        }
+    }
 }
@@ -16,9 +16,469 @@
 
 package io.lunamc.plugins.netty.config;
 
+import java.util.List;
+
 public interface ServerConfiguration {
 
     int getPort();
 
     int getTimeout();
+
+    /**
+     * Returns the number of server channels bound to the port. If more than one acceptor is configured and the
+     * transport supports it (epoll), every acceptor binds the same port using {@code SO_REUSEPORT} on its own boss
+     * event loop so the kernel distributes incoming connections between them.
+     *
+     * @return The number of acceptors (at least one)
+     */
+    int getAcceptors();
+
+    /**
+     * Returns how long encoded status responses are cached per virtual host. A value of {@code 0} disables the cache.
+     *
+     * @return The time to live in milliseconds
+     */
+    long getStatusCacheTtl();
+
+    /**
+     * Returns how long the virtual host matched for a server address and port is cached. A value of {@code 0} disables
+     * the cache.
+     *
+     * @return The time to live in milliseconds
+     */
+    long getVirtualHostCacheTtl();
+
+    /**
+     * Returns whether framing, compression, length prepending and encryption are done by a single
+     * {@link io.lunamc.plugins.netty.handler.PacketCodec} instead of separate handlers. The option is read once at
+     * startup.
+     *
+     * @return {@code true} if the fused codec is used
+     */
+    boolean isFusedCodec();
+
+    /**
+     * Returns the name of the AES/CFB8 implementation which should be used ({@code auto}, {@code jce} or the name of an
+     * engine provided by a service loader, see {@link io.lunamc.plugins.netty.cipher.CipherEngines}). Requires the
+     * fused codec, otherwise it is ignored and a warning is logged at startup.
+     *
+     * @return The name of the cipher engine
+     */
+    String getCipherEngine();
+
+    EventLoop getEventLoop();
+
+    ChildOptions getChildOptions();
+
+    Login getLogin();
+
+    Session getSession();
+
+    ConnectionThrottle getConnectionThrottle();
+
+    TrafficShaping getTrafficShaping();
+
+    PacketCompression getPacketCompression();
+
+    interface EventLoop {
+
+        /**
+         * Returns the name of the transport which should be used ({@code auto}, {@code nio}, {@code epoll} or the
+         * name of a transport provided using {@link java.util.ServiceLoader}).
+         *
+         * @return The name of the transport
+         */
+        String getTransport();
+
+        /**
+         * Returns the number of threads used to accept new connections.
+         *
+         * @return The number of boss threads (at least one)
+         */
+        int getBossThreads();
+
+        /**
+         * Returns the number of threads used to handle the I/O of accepted connections. A value of {@code 0} lets Netty
+         * choose the number of threads (twice the number of available processors).
+         *
+         * @return The number of worker threads or {@code 0} for Netty's default
+         */
+        int getWorkerThreads();
+
+        /**
+         * Returns the percentage of time the event loops spend on I/O compared to non-I/O tasks.
+         *
+         * @return The I/O ratio between {@code 1} and {@code 100}
+         */
+        int getIoRatio();
+
+        String getThreadNamePrefix();
+
+        /**
+         * Returns the CPUs to which worker threads are pinned. Worker threads will be assigned round-robin to the
+         * returned CPUs. An empty list disables pinning.
+         *
+         * @return The CPU ids (never {@code null})
+         */
+        List<Integer> getCpuAffinity();
+    }
+
+    /**
+     * Socket options applied to every accepted connection. Options marked as epoll-only are ignored if the selected
+     * transport does not support them. Sizes and timeouts of {@code 0} (or {@code null} for flags) leave the
+     * operating system's default untouched.
+     */
+    interface ChildOptions {
+
+        boolean isTcpNoDelay();
+
+        boolean isKeepAlive();
+
+        int getSendBufferSize();
+
+        int getReceiveBufferSize();
+
+        /**
+         * Epoll only.
+         *
+         * @return If {@code TCP_QUICKACK} should be enabled or {@code null} for the default
+         */
+        Boolean getTcpQuickAck();
+
+        /**
+         * Epoll only.
+         *
+         * @return The {@code TCP_USER_TIMEOUT} in milliseconds
+         */
+        int getTcpUserTimeout();
+
+        /**
+         * Epoll only.
+         *
+         * @return The {@code SO_BUSY_POLL} time in microseconds
+         */
+        int getBusyPoll();
+    }
+
+    interface Login {
+
+        /**
+         * Returns the number of threads which perform the RSA decryption of logins outside of the event loops.
+         *
+         * @return The number of crypto threads (at least one)
+         */
+        int getCryptoThreads();
+
+        /**
+         * Returns the number of RSA decryptions which may wait for a crypto thread. Logins exceeding this limit will be
+         * rejected.
+         *
+         * @return The size of the crypto queue
+         */
+        int getCryptoQueueSize();
+
+        /**
+         * Returns the number of logins which may be processed at the same time. Further logins will be queued. A value
+         * of {@code 0} disables the limit.
+         *
+         * @return The maximum number of concurrent logins
+         */
+        int getMaxConcurrentLogins();
+
+        /**
+         * Returns the number of logins which may wait for a free login slot. Logins exceeding this limit will be
+         * disconnected immediately.
+         *
+         * @return The maximum number of queued logins
+         */
+        int getMaxQueuedLogins();
+
+        /**
+         * Returns how long a login may wait in the queue before it's disconnected. The read timeout does not apply to
+         * queued logins, but this value should be lower than the client's login timeout.
+         *
+         * @return The queue timeout in seconds
+         */
+        int getQueueTimeout();
+
+        /**
+         * Returns if queued logins should be admitted round-robin per remote address instead of strictly
+         * first-in-first-out, so a single address opening many connections can't starve other clients.
+         *
+         * @return {@code true} if the login queue is fair per remote address
+         */
+        boolean isPerAddressFairness();
+    }
+
+    interface Session {
+
+        /**
+         * Returns the timeout of a single request to the session server.
+         *
+         * @return The request timeout in milliseconds
+         */
+        int getRequestTimeout();
+
+        /**
+         * Returns how often a failed request (network errors, timeouts and server errors) will be retried.
+         *
+         * @return The maximum number of retries
+         */
+        int getMaxRetries();
+
+        /**
+         * Returns the delay before the first retry. The delay grows linearly with every further retry.
+         *
+         * @return The retry backoff in milliseconds
+         */
+        int getRetryBackoff();
+
+        /**
+         * Returns the latency percentile after which a second (hedged) request is sent if the first one has not been
+         * answered yet. A value of {@code 0} disables hedged requests.
+         *
+         * @return The hedging percentile between {@code 0} and {@code 100}
+         */
+        int getHedgePercentile();
+
+        /**
+         * Returns the minimum delay before a hedged request is sent.
+         *
+         * @return The minimum hedging delay in milliseconds
+         */
+        int getHedgeMinDelay();
+
+        /**
+         * Returns the number of consecutive failed requests after which requests fail immediately without contacting
+         * the session server. A value of {@code 0} disables the circuit breaker.
+         *
+         * @return The failure threshold of the circuit breaker
+         */
+        int getCircuitBreakerThreshold();
+
+        /**
+         * Returns how long the circuit breaker stays open before a single request is allowed to probe the session
+         * server again.
+         *
+         * @return The open time in milliseconds
+         */
+        int getCircuitBreakerOpenTime();
+
+        /**
+         * Returns the url of the session server's has joined endpoint. The query parameters {@code username} and
+         * {@code serverId} are appended to it.
+         *
+         * @return The has joined url
+         */
+        String getUrl();
+
+        /**
+         * Returns the maximum number of connections to the session server. A value of {@code 0} does not limit the
+         * number of connections.
+         *
+         * @return The maximum number of connections
+         */
+        int getMaxConnections();
+
+        /**
+         * Returns how long an idle connection is kept in the connection pool.
+         *
+         * @return The idle timeout in milliseconds
+         */
+        int getPooledConnectionIdleTimeout();
+
+        /**
+         * Returns how long a pooled connection may be reused before it is closed. A value of {@code 0} does not limit
+         * the lifetime of a connection.
+         *
+         * @return The connection ttl in milliseconds
+         */
+        int getConnectionTtl();
+
+        /**
+         * Returns the number of connections to the session server that are opened at startup. A value of {@code 0}
+         * disables prewarming so the first connection is opened by the first login.
+         *
+         * @return The number of prewarmed connections
+         */
+        int getPrewarmConnections();
+    }
+
+    interface ConnectionThrottle {
+
+        /**
+         * Returns how many connections per second a single address may open on average. A value of {@code 0}
+         * disables the throttle, which is the default because a proxy (like BungeeCord) connects all of its players
+         * from a single address. IPv6 addresses are throttled per /64 prefix.
+         *
+         * @return The number of connections per second
+         */
+        int getRate();
+
+        /**
+         * Returns how many connections a single address may open at once before it is throttled.
+         *
+         * @return The burst size
+         */
+        int getBurst();
+
+        /**
+         * Returns the number of addresses tracked by the throttle. If more addresses connect, the least recently
+         * active ones are forgotten.
+         *
+         * @return The number of tracked addresses
+         */
+        int getMaxTrackedAddresses();
+
+        /**
+         * Returns if connections from local addresses (like a proxy on the same machine) are never throttled.
+         *
+         * @return {@code true} if local addresses are exempt
+         */
+        boolean isExemptLocal();
+    }
+
+    interface TrafficShaping {
+
+        /**
+         * Returns if traffic shaping handlers are added to the connections. Traffic shaping and all limits may be
+         * changed at runtime (see {@link io.lunamc.plugins.netty.shaping.TrafficShaper#reconfigure()}). Enabling it
+         * at runtime only shapes connections established afterwards.
+         *
+         * @return {@code true} if traffic shaping is enabled
+         */
+        boolean isEnabled();
+
+        /**
+         * Returns the maximum number of bytes per second read from all connections together. A value of {@code 0} does
+         * not limit the traffic.
+         *
+         * @return The limit in bytes per second
+         */
+        long getGlobalReadLimit();
+
+        /**
+         * Returns the maximum number of bytes per second written to all connections together. A value of {@code 0} does
+         * not limit the traffic.
+         *
+         * @return The limit in bytes per second
+         */
+        long getGlobalWriteLimit();
+
+        /**
+         * Returns the maximum number of bytes per second read from a single connection. A value of {@code 0} does not
+         * limit the traffic.
+         *
+         * @return The limit in bytes per second
+         */
+        long getChannelReadLimit();
+
+        /**
+         * Returns the maximum number of bytes per second written to a single connection. A value of {@code 0} does not
+         * limit the traffic.
+         *
+         * @return The limit in bytes per second
+         */
+        long getChannelWriteLimit();
+
+        /**
+         * Returns the maximum number of bytes per second read from all connections of a remote address. A value of
+         * {@code 0} does not limit the traffic. If both address limits are {@code 0}, connections are established
+         * without an address handler, so raising the address limits at runtime only affects new connections.
+         *
+         * @return The limit in bytes per second
+         */
+        long getAddressReadLimit();
+
+        /**
+         * Returns the maximum number of bytes per second written to all connections of a remote address. A value of
+         * {@code 0} does not limit the traffic.
+         *
+         * @return The limit in bytes per second
+         */
+        long getAddressWriteLimit();
+
+        /**
+         * Returns the interval in which the traffic is measured.
+         *
+         * @return The check interval in milliseconds
+         */
+        long getCheckInterval();
+
+        /**
+         * Returns the maximum time a read or write is delayed.
+         *
+         * @return The maximum delay in milliseconds
+         */
+        long getMaxTime();
+    }
+
+    interface PacketCompression {
+
+        /**
+         * Returns the name of the zlib implementation which should be used ({@code auto}, {@code java} or the name of a
+         * backend provided by a service loader, see {@link io.lunamc.plugins.netty.compression.CompressionBackends}).
+         * Requires the fused codec, otherwise it is ignored and a warning is logged at startup.
+         *
+         * @return The name of the compression backend
+         */
+        String getBackend();
+
+        /**
+         * Returns if the compression adapts to the connections. An adaptive connection sends packets uncompressed if
+         * compression doesn't save at least {@link #getMinSavings()} percent, raises its threshold while compression
+         * doesn't pay off and uses the fastest compression level while its event loop is busy. Requires the fused codec
+         * (see {@link ServerConfiguration#isFusedCodec()}), otherwise it is ignored and a warning is logged at startup.
+         *
+         * @return {@code true} if the compression is adaptive
+         */
+        boolean isAdaptive();
+
+        /**
+         * Returns the percentage of bytes compression has to save to pay off.
+         *
+         * @return The minimum savings in percent
+         */
+        int getMinSavings();
+
+        /**
+         * Returns up to which packet size the threshold of an adaptive connection may be raised. Larger packets are
+         * always compressed (unless compression doesn't pay off).
+         *
+         * @return The maximum threshold in bytes
+         */
+        int getMaxThreshold();
+
+        /**
+         * Returns the number of pending tasks at which an event loop is considered busy.
+         *
+         * @return The number of pending tasks
+         */
+        int getBusyPendingTasks();
+
+        /**
+         * Returns the size from which packets are compressed by the compression executor instead of the event loop
+         * (see {@link io.lunamc.plugins.netty.compression.CompressionExecutor}). Packets of a connection are still sent
+         * in order. A value of {@code 0} disables offloading. Requires the fused codec, otherwise it is ignored and a
+         * warning is logged at startup.
+         *
+         * @return The offload threshold in bytes
+         */
+        int getOffloadThreshold();
+
+        /**
+         * Returns the number of threads of the compression executor.
+         *
+         * @return The number of threads (at least one)
+         */
+        int getOffloadThreads();
+
+        /**
+         * Returns the maximum number of packets waiting for the compression executor. Packets are compressed by the
+         * event loop if the queue is full.
+         *
+         * @return The queue size
+         */
+        int getOffloadQueueSize();
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.lunamc.plugins.netty.netty.EventLoopTimer;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.ReadTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raises a {@link ReadTimeoutException} and closes the connection if nothing was read for the given time. Behaves like
+ * {@link io.netty.handler.timeout.ReadTimeoutHandler} but uses the {@link EventLoopTimer} of the channel's event loop
+ * instead of a scheduled task per connection.
+ */
+public class IdleTimeoutHandler extends ChannelInboundHandlerAdapter {
+
+    private final long timeout;
+    private EventLoopTimer.Timeout timeoutTask;
+    private long lastReadTime;
+    private boolean reading;
+    private boolean suspended;
+    private boolean closed;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeout The read timeout in seconds
+     */
+    public IdleTimeoutHandler(int timeout) {
+        this.timeout = TimeUnit.SECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Suspends or resumes the timeout. While suspended the connection is not closed, even if nothing is read. Resuming
+     * starts the full timeout again. Must be called by the event loop of the channel.
+     *
+     * @param suspended {@code true} to suspend the timeout
+     */
+    public void setSuspended(boolean suspended) {
+        if (this.suspended && !suspended)
+            lastReadTime = System.nanoTime();
+        this.suspended = suspended;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive() && ctx.channel().isRegistered())
+            initialize(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        initialize(ctx);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        reading = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (reading) {
+            lastReadTime = System.nanoTime();
+            reading = false;
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    private void initialize(ChannelHandlerContext ctx) {
+        if (timeoutTask != null || closed || timeout <= 0)
+            return;
+        lastReadTime = System.nanoTime();
+        schedule(ctx, timeout);
+    }
+
+    private void destroy() {
+        closed = true;
+        if (timeoutTask != null) {
+            timeoutTask.cancel();
+            timeoutTask = null;
+        }
+    }
+
+    private void schedule(ChannelHandlerContext ctx, long delay) {
+        timeoutTask = EventLoopTimer.get(ctx.executor()).schedule(() -> expired(ctx), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void expired(ChannelHandlerContext ctx) {
+        if (closed || !ctx.channel().isOpen())
+            return;
+        if (reading || suspended) {
+            schedule(ctx, timeout);
+            return;
+        }
+        long remaining = timeout - (System.nanoTime() - lastReadTime);
+        if (remaining > 0) {
+            schedule(ctx, remaining);
+            return;
+        }
+        closed = true;
+        timeoutTask = null;
+        ctx.fireExceptionCaught(ReadTimeoutException.INSTANCE);
+        ctx.close();
+    }
+}
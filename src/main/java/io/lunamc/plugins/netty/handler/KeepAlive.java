@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.lunamc.plugins.netty.netty.EventLoopTimer;
+import io.lunamc.plugins.netty.network.NettyConnection;
+import io.lunamc.plugins.netty.protocol.PacketType;
+import io.lunamc.protocol.ChannelHandlerContextUtils;
+import io.lunamc.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends keep alives to a connection in the play state and measures the round trip time of the responses. It's owned
+ * by the {@link ProtocolStateHandler} of the connection, so entering the play state doesn't modify the pipeline.
+ */
+class KeepAlive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeepAlive.class);
+    private static final int INTERVAL = 10;
+    // 1 byte for packet id and up to 8 bytes of payload
+    private static final int PACKET_KEEP_ALIVE_SIZE = 9;
+    // Number of keep alives which may be unanswered at the same time
+    private static final int MAX_OUTSTANDING = 4;
+    private static final int MC_1_8_PROTOCOL_VERSION = 47;
+    private static final int MC_1_12_2_PROTOCOL_VERSION = 340;
+
+    private final ChannelHandlerContext ctx;
+    private final NettyConnection connection;
+    private final int[] outstandingIds = new int[MAX_OUTSTANDING];
+    private final long[] outstandingTimes = new long[MAX_OUTSTANDING];
+    private int nextOutstanding;
+    private EventLoopTimer.Timeout keepAliveTimeout;
+
+    KeepAlive(ChannelHandlerContext ctx, NettyConnection connection) {
+        this.ctx = Objects.requireNonNull(ctx, "ctx must not be null");
+        this.connection = Objects.requireNonNull(connection, "connection must not be null");
+    }
+
+    void start() {
+        LOGGER.debug("Schedule keep alive for {}", ChannelHandlerContextUtils.client(ctx));
+        scheduleKeepAlive();
+    }
+
+    void stop() {
+        if (keepAliveTimeout != null) {
+            keepAliveTimeout.cancel();
+            keepAliveTimeout = null;
+            LOGGER.debug("Cancel keep alive schedule for {}", ChannelHandlerContextUtils.client(ctx));
+        }
+    }
+
+    /**
+     * Checks if a packet read in the play state is a response to an outstanding keep alive. The reader index of the
+     * packet is not changed, so the play handlers see the response too.
+     *
+     * @param content The packet
+     */
+    void checkKeepAliveResponse(ByteBuf content) {
+        int readerIndex = content.readerIndex();
+        try {
+            int packetId = connection.getPacketTable().getPacketId(PacketType.PLAY_KEEP_ALIVE_RESPONSE);
+            if (!content.isReadable() || ProtocolUtils.readVarInt(content) != packetId || !content.isReadable())
+                return;
+            long id = readKeepAliveId(content);
+            for (int i = 0; i < MAX_OUTSTANDING; i++) {
+                if (outstandingTimes[i] != 0 && outstandingIds[i] == id) {
+                    connection.getPingStatistics().record(System.nanoTime() - outstandingTimes[i]);
+                    outstandingTimes[i] = 0;
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Malformed packets are handled by the play handlers
+        } finally {
+            content.readerIndex(readerIndex);
+        }
+    }
+
+    private void writeKeepAlive() {
+        LOGGER.debug("Write keep alive for {}", ChannelHandlerContextUtils.client(ctx));
+
+        int id = ThreadLocalRandom.current().nextInt();
+        outstandingIds[nextOutstanding] = id;
+        outstandingTimes[nextOutstanding] = System.nanoTime();
+        nextOutstanding = (nextOutstanding + 1) % MAX_OUTSTANDING;
+
+        ByteBuf output = ctx.alloc().buffer(PACKET_KEEP_ALIVE_SIZE);
+        // Write packet id
+        ProtocolUtils.writeVarInt(output, connection.getPacketTable().getPacketId(PacketType.PLAY_KEEP_ALIVE_REQUEST));
+        // Write keep alive id (int before 1.8, VarInt until 1.12.1 and long since 1.12.2)
+        int protocolVersion = connection.getProtocolVersion();
+        if (protocolVersion < MC_1_8_PROTOCOL_VERSION)
+            output.writeInt(id);
+        else if (protocolVersion < MC_1_12_2_PROTOCOL_VERSION)
+            ProtocolUtils.writeVarInt(output, id);
+        else
+            output.writeLong(id);
+        // Write packet
+        ctx.writeAndFlush(output, ctx.voidPromise());
+    }
+
+    private long readKeepAliveId(ByteBuf content) {
+        int protocolVersion = connection.getProtocolVersion();
+        if (protocolVersion < MC_1_8_PROTOCOL_VERSION)
+            return content.readInt();
+        else if (protocolVersion < MC_1_12_2_PROTOCOL_VERSION)
+            return ProtocolUtils.readVarInt(content);
+        else
+            return content.readLong();
+    }
+
+    private void scheduleKeepAlive() {
+        keepAliveTimeout = EventLoopTimer.get(ctx.executor()).schedule(() -> {
+            if (ctx.channel().isActive()) {
+                writeKeepAlive();
+                scheduleKeepAlive();
+            } else {
+                keepAliveTimeout = null;
+            }
+        }, INTERVAL, TimeUnit.SECONDS);
+    }
+}
@@ -18,14 +18,10 @@ package io.lunamc.plugins.netty.handler;
 
 import io.lunamc.platform.service.ServiceRegistration;
 import io.lunamc.common.host.VirtualHost;
-import io.lunamc.common.host.VirtualHostManager;
-import io.lunamc.common.network.DecidedConnection;
-import io.lunamc.common.network.InitializedConnection;
-import io.lunamc.common.status.BetaStatusResponse;
-import io.lunamc.common.status.LegacyStatusResponse;
+import io.lunamc.plugins.netty.host.VirtualHostCache;
+import io.lunamc.plugins.netty.network.ConnectionState;
 import io.lunamc.plugins.netty.network.NettyConnection;
-import io.lunamc.plugins.netty.network.NettyDecidedConnection;
-import io.lunamc.plugins.netty.network.NettyInitializedConnection;
+import io.lunamc.plugins.netty.status.StatusResponseCache;
 import io.lunamc.plugins.netty.utils.NettyUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
@@ -39,19 +35,21 @@ import java.util.Objects;
 public class LegacyPingHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
     public static final String HANDLER_NAME = "legacy-ping";
-    private static final String LEGACY_DELIMITER = "\b00\b00";
 
-    private final ServiceRegistration<VirtualHostManager> virtualHostManager;
+    private final ServiceRegistration<VirtualHostCache> virtualHostCache;
+    private final ServiceRegistration<StatusResponseCache> statusResponseCache;
 
-    public LegacyPingHandler(ServiceRegistration<VirtualHostManager> virtualHostManager) {
+    public LegacyPingHandler(ServiceRegistration<VirtualHostCache> virtualHostCache,
+                             ServiceRegistration<StatusResponseCache> statusResponseCache) {
         super(ByteBuf.class, false);
 
-        this.virtualHostManager = Objects.requireNonNull(virtualHostManager, "virtualHostManager must not be null");
+        this.virtualHostCache = Objects.requireNonNull(virtualHostCache, "virtualHostCache must not be null");
+        this.statusResponseCache = Objects.requireNonNull(statusResponseCache, "statusResponseCache must not be null");
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
-        int b = msg.readByte();
+        int b = msg.readUnsignedByte();
         if (b == 0xfe) {
             try {
                 handleLegacyPing(ctx, msg);
@@ -74,7 +72,8 @@ public class LegacyPingHandler extends SimpleChannelInboundHandler<ByteBuf> {
         }
 
         // Read "server list ping's payload"
-        assert buffer.readByte() == 0x01;
+        short payload = buffer.readUnsignedByte();
+        assert payload == 0x01;
 
         if (!buffer.isReadable()) {
             // 1.4
@@ -86,10 +85,12 @@ public class LegacyPingHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
         // http://wiki.vg/index.php?title=Protocol&oldid=4779#Plugin_Message_.280xFA.29
         // Read "packet identifier for a plugin message"
-        assert buffer.readByte() == 0xfa;
+        short packetId = buffer.readUnsignedByte();
+        assert packetId == 0xfa;
 
         // Read something which seems to be a plugin channel name
-        assert readLegacyString(buffer).equals("MC|PingHost");
+        String channel = readLegacyString(buffer);
+        assert channel.equals("MC|PingHost");
 
         // Read length of remaining data
         buffer.readShort();
@@ -97,60 +98,29 @@ public class LegacyPingHandler extends SimpleChannelInboundHandler<ByteBuf> {
         byte protocolVersion = buffer.readByte();
         String host = readLegacyString(buffer);
         int port = buffer.readInt();
-        InitializedConnection connection = new NettyInitializedConnection(ctx.channel(), protocolVersion, host, port);
-        VirtualHost virtualHost = virtualHostManager.requireInstance().matchHost(connection);
-        DecidedConnection decidedConnection = new NettyDecidedConnection(ctx.channel(), protocolVersion, host, port, virtualHost);
-        LegacyStatusResponse response = virtualHost.getStatusProvider(connection).createLegacy16StatusResponse(decidedConnection);
-
-        ByteBuf output = ctx.alloc().buffer();
-        output.writeByte(0xff);
-        String dataString = composeLegacyStatusResponseData(response);
-        writeLegacyString(output, dataString);
-        NettyUtils.writeFlushAndClose(ctx, output);
+        NettyConnection connection = NettyConnection.get(ctx.channel());
+        connection.initialize(protocolVersion, host, port);
+        VirtualHost virtualHost = virtualHostCache.requireInstance().matchHost(connection);
+        if (virtualHost == null)
+            throw new IllegalStateException("No fallback host found");
+        connection.decide(virtualHost, ConnectionState.STATUS);
+        NettyUtils.writeFlushAndClose(ctx, statusResponseCache.requireInstance().getLegacy16StatusResponse(connection, ctx.alloc()));
     }
 
     private void sendLegacy14Response(ChannelHandlerContext ctx) {
-        NettyConnection connection = new NettyConnection(ctx.channel());
-        VirtualHost virtualHost = virtualHostManager.requireInstance().getFallbackHost();
-
-        LegacyStatusResponse response = virtualHost.getStatusProvider(connection).createLegacy14StatusResponse(connection);
-        ByteBuf output = ctx.alloc().buffer();
-        output.writeByte(0xff);
-        String dataString = composeLegacyStatusResponseData(response);
-        writeLegacyString(output, dataString);
-        NettyUtils.writeFlushAndClose(ctx, output);
+        NettyConnection connection = NettyConnection.get(ctx.channel());
+        VirtualHost virtualHost = virtualHostCache.requireInstance().getFallbackHost();
+        NettyUtils.writeFlushAndClose(ctx, statusResponseCache.requireInstance().getLegacy14StatusResponse(connection, virtualHost, ctx.alloc()));
     }
 
     private void sendBetaStatusResponse(ChannelHandlerContext ctx) {
-        NettyConnection connection = new NettyConnection(ctx.channel());
-        VirtualHost virtualHost = virtualHostManager.requireInstance().getFallbackHost();
-
-        BetaStatusResponse response = virtualHost.getStatusProvider(connection).createBetaStatusResponse(connection);
-        ByteBuf output = ctx.alloc().buffer();
-        output.writeByte(0xff);
-        String dataString = response.getMessageOfTheDay() + '§' +
-                response.getCurrentPlayerCount() + '§' +
-                response.getMaxPlayerCount();
-        writeLegacyString(output, dataString);
-        NettyUtils.writeFlushAndClose(ctx, output);
+        NettyConnection connection = NettyConnection.get(ctx.channel());
+        VirtualHost virtualHost = virtualHostCache.requireInstance().getFallbackHost();
+        NettyUtils.writeFlushAndClose(ctx, statusResponseCache.requireInstance().getBetaStatusResponse(connection, virtualHost, ctx.alloc()));
     }
 
     private static String readLegacyString(ByteBuf buffer) {
         int length = buffer.readShort();
         return buffer.readCharSequence(length, CharsetUtil.UTF_16BE).toString();
     }
-
-    private static void writeLegacyString(ByteBuf buffer, String str) {
-        byte[] data = str.getBytes(CharsetUtil.UTF_16BE);
-        buffer.writeShort(data.length);
-        buffer.writeBytes(data);
-    }
-
-    private static String composeLegacyStatusResponseData(LegacyStatusResponse response) {
-        return "§1\0" + response.getProtocolVersion() + LEGACY_DELIMITER +
-                response.getServerVersion() + LEGACY_DELIMITER +
-                response.getMessageOfTheDay() + LEGACY_DELIMITER +
-                response.getCurrentPlayerCount() + LEGACY_DELIMITER +
-                response.getMaxPlayerCount();
-    }
 }
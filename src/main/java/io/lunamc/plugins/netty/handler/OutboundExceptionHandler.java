@@ -30,12 +30,16 @@ public class OutboundExceptionHandler extends ChannelOutboundHandlerAdapter {
     public static final String HANDLER_NAME = "outbound-exception-handler";
     public static final OutboundExceptionHandler INSTANCE = new OutboundExceptionHandler();
     private static final Logger LOGGER = LoggerFactory.getLogger(OutboundExceptionHandler.class);
+    private static final ChannelFutureListener LOG_FAILURE = future -> {
+        if (!future.isSuccess())
+            LOGGER.error("An exception occurred while sending data", future.cause());
+    };
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-        ctx.write(msg).addListener((ChannelFutureListener) future -> {
-            if (!future.isSuccess())
-                LOGGER.error("An exception occurred while sending data", future.cause());
-        });
+        ctx.write(msg, promise);
+        // Failures of void promises are fired through the pipeline instead
+        if (!promise.isVoid())
+            promise.addListener(LOG_FAILURE);
     }
 }
@@ -0,0 +1,492 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.lunamc.plugins.netty.cipher.CipherEngine;
+import io.lunamc.plugins.netty.cipher.CipherEngines;
+import io.lunamc.plugins.netty.cipher.PacketCipher;
+import io.lunamc.plugins.netty.compression.AdaptiveCompression;
+import io.lunamc.plugins.netty.compression.CompressionBackend;
+import io.lunamc.plugins.netty.compression.CompressionBackends;
+import io.lunamc.plugins.netty.compression.CompressionExecutor;
+import io.lunamc.plugins.netty.compression.PacketCompressor;
+import io.lunamc.plugins.netty.compression.PacketDecompressor;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.metrics.ConnectionMetrics;
+import io.lunamc.plugins.netty.protocol.ProtocolException;
+import io.lunamc.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.DataFormatException;
+
+/**
+ * Frames packets, compresses them (if enabled), prepends their length and encrypts them (if enabled) in a single
+ * handler. It replaces the chain of {@link io.lunamc.protocol.handler.LengthLimitedFrameDecoder},
+ * {@link io.lunamc.protocol.handler.PacketLengthPrepender},
+ * {@link io.lunamc.protocol.handler.compression.PacketCompressor},
+ * {@link io.lunamc.protocol.handler.compression.PacketDecompressor},
+ * {@link io.lunamc.protocol.handler.cipher.CipherEncoder}, {@link io.lunamc.protocol.handler.cipher.CipherDecoder} and
+ * the packet {@link TrafficMetricsHandler}.
+ * <p>
+ * Compression uses a {@link CompressionBackend}. Its compressor and decompressor are created once per connection and
+ * reused for every packet. Encryption uses a {@link CipherEngine} and works in place on the buffers read from and
+ * written to the network.
+ * <p>
+ * If configured, compression adapts to the connection (see {@link AdaptiveCompression}) and packets from a certain size
+ * are compressed by the {@link CompressionExecutor}. Writes following an offloaded packet are queued until it is
+ * compressed, so packets are always sent in order.
+ */
+public class PacketCodec extends ByteToMessageCodec<ByteBuf> {
+
+    public static final String HANDLER_NAME = "packet-codec";
+
+    // A frame length is encoded by at most three bytes
+    private static final int MAX_FRAME_LENGTH = (1 << 21) - 1;
+    private static final int MAX_UNCOMPRESSED_LENGTH = 1 << 21;
+    private static final int MAX_VAR_INT_LENGTH = 5;
+    private static final FastThreadLocal<Map<CompressionBackend, PacketCompressor>> OFFLOAD_COMPRESSORS =
+            new FastThreadLocal<Map<CompressionBackend, PacketCompressor>>() {
+                @Override
+                protected Map<CompressionBackend, PacketCompressor> initialValue() throws Exception {
+                    return new IdentityHashMap<>();
+                }
+
+                @Override
+                protected void onRemoval(Map<CompressionBackend, PacketCompressor> value) throws Exception {
+                    value.values().forEach(PacketCompressor::close);
+                }
+            };
+
+    private final ServerConfiguration.PacketCompression compressionConfig;
+    private final CompressionBackend compressionBackend;
+    private final CipherEngine cipherEngine;
+    private final CompressionExecutor compressionExecutor;
+    private final Deque<QueuedWrite> queuedWrites = new ArrayDeque<>();
+    private ConnectionMetrics metrics;
+    private int compressionThreshold = -1;
+    private int compressionLevel;
+    private AdaptiveCompression adaptiveCompression;
+    private int offloadThreshold;
+    private boolean offloading;
+    private boolean flushPending;
+    private boolean removed;
+    private PacketCompressor compressor;
+    private PacketDecompressor decompressor;
+    private PacketCipher encryptCipher;
+    private PacketCipher decryptCipher;
+
+    public PacketCodec() {
+        this(null, CompressionBackends.get(), CipherEngines.get(), null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param compressionConfig The compression configuration or {@code null} to use neither adaptive compression nor
+     *                          offloading
+     * @param compressionBackend The backend used to compress and decompress packets
+     * @param cipherEngine The engine used to encrypt and decrypt the connection
+     * @param compressionExecutor The executor used for offloading or {@code null} to disable offloading
+     */
+    public PacketCodec(ServerConfiguration.PacketCompression compressionConfig,
+                       CompressionBackend compressionBackend,
+                       CipherEngine cipherEngine,
+                       CompressionExecutor compressionExecutor) {
+        super(ByteBuf.class);
+
+        this.compressionConfig = compressionConfig;
+        this.compressionBackend = Objects.requireNonNull(compressionBackend, "compressionBackend must not be null");
+        this.cipherEngine = Objects.requireNonNull(cipherEngine, "cipherEngine must not be null");
+        this.compressionExecutor = compressionExecutor;
+    }
+
+    /**
+     * Compresses packets with at least {@code threshold} bytes from now on and expects compressed packets from the
+     * client. Must be called by the event loop of the channel.
+     *
+     * @param threshold The minimum size of compressed packets
+     * @param level The compression level ({@code 0} - {@code 9})
+     */
+    public void enableCompression(int threshold, int level) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("threshold must not be negative");
+        if (compressor == null) {
+            compressor = compressionBackend.createCompressor();
+            decompressor = compressionBackend.createDecompressor();
+        }
+        compressionThreshold = threshold;
+        compressionLevel = level;
+        if (compressionConfig != null) {
+            adaptiveCompression = compressionConfig.isAdaptive() ? new AdaptiveCompression(compressionConfig, threshold, level) : null;
+            offloadThreshold = compressionExecutor != null ? compressionConfig.getOffloadThreshold() : 0;
+        }
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionThreshold >= 0;
+    }
+
+    /**
+     * Encrypts and decrypts everything sent and received from now on using AES/CFB8 with the shared secret as key and
+     * initialization vector. Must be called by the event loop of the channel.
+     *
+     * @param secret The shared secret
+     */
+    public void enableEncryption(SecretKey secret) {
+        if (isEncryptionEnabled())
+            throw new IllegalStateException("Encryption already enabled");
+        encryptCipher = cipherEngine.createCipher(secret, true);
+        decryptCipher = cipherEngine.createCipher(secret, false);
+    }
+
+    public boolean isEncryptionEnabled() {
+        return encryptCipher != null;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        metrics = ConnectionMetrics.get(ctx.channel());
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        try {
+            super.handlerRemoved(ctx);
+        } finally {
+            if (compressor != null) {
+                compressor.close();
+                decompressor.close();
+                compressor = null;
+                decompressor = null;
+            }
+            compressionThreshold = -1;
+            if (encryptCipher != null) {
+                encryptCipher.close();
+                decryptCipher.close();
+                encryptCipher = null;
+                decryptCipher = null;
+            }
+            removed = true;
+            QueuedWrite queued;
+            while ((queued = queuedWrites.poll()) != null) {
+                ReferenceCountUtil.release(queued.msg);
+                queued.promise.tryFailure(new ChannelException(getClass().getSimpleName() + " removed"));
+            }
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (offloading) {
+            queuedWrites.add(new QueuedWrite(msg, promise));
+        } else if (shouldOffload(msg)) {
+            offload(ctx, (ByteBuf) msg, promise);
+        } else {
+            super.write(ctx, msg, promise);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (offloading)
+            flushPending = true;
+        else
+            super.flush(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (isEncryptionEnabled() && msg instanceof ByteBuf) {
+            ByteBuf buffer = (ByteBuf) msg;
+            try {
+                decryptCipher.process(buffer, buffer.readerIndex(), buffer.readableBytes());
+            } catch (Throwable throwable) {
+                buffer.release();
+                throw throwable;
+            }
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        int frameStart = in.readerIndex();
+        int length = readFrameLength(in);
+        if (length < 0 || in.readableBytes() < length) {
+            in.readerIndex(frameStart);
+            return;
+        }
+
+        ByteBuf packet;
+        if (isCompressionEnabled()) {
+            int frameEnd = in.readerIndex() + length;
+            int uncompressedLength = ProtocolUtils.readVarInt(in);
+            if (in.readerIndex() > frameEnd)
+                throw new ProtocolException("Uncompressed length exceeds the frame");
+            if (uncompressedLength == 0) {
+                packet = in.readRetainedSlice(frameEnd - in.readerIndex());
+            } else {
+                packet = inflate(ctx, in, frameEnd - in.readerIndex(), uncompressedLength);
+                in.readerIndex(frameEnd);
+            }
+        } else {
+            packet = in.readRetainedSlice(length);
+        }
+
+        if (metrics != null)
+            metrics.packetRead(packet.readableBytes());
+        out.add(packet);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
+        int length = msg.readableBytes();
+        int capacity = isCompressionEnabled() && length >= currentThreshold()
+                ? MAX_VAR_INT_LENGTH * 2 + PacketCompressor.maxCompressedLength(length)
+                : MAX_VAR_INT_LENGTH * 2 + length;
+        return preferDirect ? ctx.alloc().ioBuffer(capacity) : ctx.alloc().heapBuffer(capacity);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
+        int start = out.writerIndex();
+        int length = msg.readableBytes();
+        if (metrics != null)
+            metrics.packetWritten(length);
+
+        if (!isCompressionEnabled()) {
+            ProtocolUtils.writeVarInt(out, length);
+            out.writeBytes(msg);
+        } else if (length < currentThreshold()) {
+            writeUncompressed(out, msg, length);
+        } else {
+            ByteBuf compressed = allocate(ctx.alloc(), compressionBackend, PacketCompressor.maxCompressedLength(length));
+            try {
+                int compressedLength = compressor.compress(msg, compressed, compressionLevel(ctx.executor()));
+                if (adaptiveCompression == null || adaptiveCompression.record(length, compressedLength)) {
+                    writeCompressed(out, length, compressed);
+                    msg.skipBytes(length);
+                } else {
+                    writeUncompressed(out, msg, length);
+                }
+            } finally {
+                compressed.release();
+            }
+        }
+
+        if (isEncryptionEnabled())
+            encryptCipher.process(out, start, out.writerIndex() - start);
+    }
+
+    private int currentThreshold() {
+        return adaptiveCompression != null ? adaptiveCompression.getThreshold() : compressionThreshold;
+    }
+
+    private int compressionLevel(EventExecutor executor) {
+        if (adaptiveCompression == null)
+            return compressionLevel;
+        int pendingTasks = executor instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) executor).pendingTasks() : 0;
+        return adaptiveCompression.getLevel(pendingTasks);
+    }
+
+    private boolean shouldOffload(Object msg) {
+        if (offloadThreshold <= 0 || !isCompressionEnabled() || !(msg instanceof ByteBuf))
+            return false;
+        int length = ((ByteBuf) msg).readableBytes();
+        return length >= offloadThreshold && length >= currentThreshold();
+    }
+
+    private void offload(ChannelHandlerContext ctx, ByteBuf packet, ChannelPromise promise) {
+        offloading = true;
+        ByteBufAllocator alloc = ctx.alloc();
+        CompressionBackend backend = compressionBackend;
+        int level = compressionLevel(ctx.executor());
+        compressionExecutor.submit(() -> compressOffloaded(alloc, backend, packet, level))
+                .whenComplete((compressed, cause) -> {
+                    try {
+                        ctx.executor().execute(() -> offloaded(ctx, packet, promise, compressed));
+                    } catch (RejectedExecutionException e) {
+                        // The event loop is shut down
+                        packet.release();
+                        ReferenceCountUtil.release(compressed);
+                    }
+                });
+    }
+
+    private void offloaded(ChannelHandlerContext ctx, ByteBuf packet, ChannelPromise promise, ByteBuf compressed) {
+        offloading = false;
+        if (removed) {
+            packet.release();
+            ReferenceCountUtil.release(compressed);
+            promise.tryFailure(new ChannelException(getClass().getSimpleName() + " removed"));
+            return;
+        }
+
+        try {
+            if (compressed != null) {
+                writeOffloaded(ctx, packet, compressed, promise);
+            } else {
+                // The compression executor is saturated so the packet is compressed by the event loop
+                super.write(ctx, packet, promise);
+            }
+        } catch (Throwable throwable) {
+            promise.tryFailure(throwable);
+        }
+
+        QueuedWrite queued;
+        while (!offloading && (queued = queuedWrites.poll()) != null) {
+            try {
+                write(ctx, queued.msg, queued.promise);
+            } catch (Throwable throwable) {
+                queued.promise.tryFailure(throwable);
+            }
+        }
+        if (flushPending) {
+            ctx.flush();
+            // Flush again once the next offloaded packet is written
+            flushPending = offloading;
+        }
+    }
+
+    private void writeOffloaded(ChannelHandlerContext ctx, ByteBuf packet, ByteBuf compressed, ChannelPromise promise) {
+        ByteBuf out = null;
+        try {
+            int length = packet.readableBytes();
+            int compressedLength = compressed.readableBytes();
+            if (metrics != null)
+                metrics.packetWritten(length);
+
+            boolean paysOff = adaptiveCompression == null || adaptiveCompression.record(length, compressedLength);
+            out = ctx.alloc().ioBuffer(MAX_VAR_INT_LENGTH * 2 + (paysOff ? compressedLength : length));
+            if (paysOff)
+                writeCompressed(out, length, compressed);
+            else
+                writeUncompressed(out, packet, length);
+            if (isEncryptionEnabled())
+                encryptCipher.process(out, 0, out.writerIndex());
+
+            ctx.write(out, promise);
+            out = null;
+        } finally {
+            packet.release();
+            compressed.release();
+            if (out != null)
+                out.release();
+        }
+    }
+
+    private static void writeUncompressed(ByteBuf out, ByteBuf msg, int length) {
+        // An uncompressed length of 0 marks an uncompressed packet
+        ProtocolUtils.writeVarInt(out, length + 1);
+        out.writeByte(0);
+        out.writeBytes(msg, length);
+    }
+
+    private static void writeCompressed(ByteBuf out, int length, ByteBuf compressed) {
+        ProtocolUtils.writeVarInt(out, varIntLength(length) + compressed.readableBytes());
+        ProtocolUtils.writeVarInt(out, length);
+        out.writeBytes(compressed, compressed.readerIndex(), compressed.readableBytes());
+    }
+
+    private ByteBuf inflate(ChannelHandlerContext ctx, ByteBuf in, int compressedLength, int uncompressedLength)
+            throws DataFormatException {
+        if (uncompressedLength < compressionThreshold)
+            throw new ProtocolException("Compressed packet of " + uncompressedLength + " bytes is below the threshold");
+        if (uncompressedLength > MAX_UNCOMPRESSED_LENGTH)
+            throw new ProtocolException("Compressed packet of " + uncompressedLength + " bytes is too large");
+
+        ByteBuf packet = allocate(ctx.alloc(), compressionBackend, uncompressedLength);
+        try {
+            decompressor.decompress(in, compressedLength, packet, uncompressedLength);
+            return packet;
+        } catch (Throwable throwable) {
+            packet.release();
+            throw throwable;
+        }
+    }
+
+    // Runs on a thread of the compression executor
+    private static ByteBuf compressOffloaded(ByteBufAllocator alloc, CompressionBackend backend, ByteBuf packet, int level) {
+        PacketCompressor compressor = OFFLOAD_COMPRESSORS.get().computeIfAbsent(backend, CompressionBackend::createCompressor);
+        ByteBuf compressed = allocate(alloc, backend, PacketCompressor.maxCompressedLength(packet.readableBytes()));
+        try {
+            compressor.compress(packet, compressed, level);
+            return compressed;
+        } catch (Throwable throwable) {
+            compressed.release();
+            throw throwable;
+        }
+    }
+
+    private static ByteBuf allocate(ByteBufAllocator alloc, CompressionBackend backend, int capacity) {
+        return backend.isDirect() ? alloc.directBuffer(capacity) : alloc.heapBuffer(capacity);
+    }
+
+    private static int readFrameLength(ByteBuf in) {
+        int length = 0;
+        for (int i = 0; i < 3; i++) {
+            if (!in.isReadable())
+                return -1;
+            byte b = in.readByte();
+            length |= (b & 0x7f) << (i * 7);
+            if (b >= 0)
+                return length;
+        }
+        throw new ProtocolException("Frame length exceeds " + MAX_FRAME_LENGTH + " bytes");
+    }
+
+    private static int varIntLength(int value) {
+        if ((value & 0xffffff80) == 0)
+            return 1;
+        if ((value & 0xffffc000) == 0)
+            return 2;
+        if ((value & 0xffe00000) == 0)
+            return 3;
+        if ((value & 0xf0000000) == 0)
+            return 4;
+        return 5;
+    }
+
+    private static class QueuedWrite {
+
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private QueuedWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.lunamc.plugins.netty.protocol.PacketType;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Handles the packets of one protocol state. The active packet handler of a connection is chosen by its
+ * {@link ProtocolStateHandler}.
+ */
+public interface PacketHandler {
+
+    /**
+     * Handles a packet. Only packets of the current state are passed to this method. The content is released after
+     * this method returns.
+     *
+     * @param ctx The context of the {@link ProtocolStateHandler}
+     * @param type The type of the packet
+     * @param content The content of the packet (without the packet id)
+     */
+    void handlePacket(ChannelHandlerContext ctx, PacketType type, ByteBuf content);
+}
@@ -18,52 +18,56 @@ package io.lunamc.plugins.netty.handler;
 
 import io.lunamc.platform.service.ServiceRegistration;
 import io.lunamc.common.host.VirtualHost;
-import io.lunamc.common.host.VirtualHostManager;
-import io.lunamc.common.json.JsonMapper;
 import io.lunamc.common.login.encryption.EncryptionFactory;
 import io.lunamc.common.login.session.SessionClient;
-import io.lunamc.common.network.DecidedConnection;
-import io.lunamc.common.network.InitializedConnection;
-import io.lunamc.plugins.netty.network.NettyDecidedConnection;
-import io.lunamc.plugins.netty.network.NettyInitializedConnection;
+import io.lunamc.plugins.netty.host.VirtualHostCache;
+import io.lunamc.plugins.netty.login.LoginAdmission;
+import io.lunamc.plugins.netty.login.encryption.CryptoExecutor;
+import io.lunamc.plugins.netty.network.ConnectionState;
+import io.lunamc.plugins.netty.network.NettyConnection;
+import io.lunamc.plugins.netty.protocol.PacketType;
 import io.lunamc.plugins.netty.protocol.ProtocolException;
+import io.lunamc.plugins.netty.status.StatusResponseCache;
 import io.lunamc.protocol.ProtocolUtils;
-import io.lunamc.protocol.handler.PacketInboundHandlerAdapter;
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.util.Objects;
 
-@ChannelHandler.Sharable
-public class ProtocolHandshakeHandler extends PacketInboundHandlerAdapter {
-
-    public static final String HANDLER_NAME = "handshake-handler";
+/**
+ * Handles the handshake of a connection. This packet handler is stateless and shared by all connections.
+ */
+public class ProtocolHandshakeHandler implements PacketHandler {
 
     private final ServiceRegistration<EncryptionFactory> encryptionFactory;
-    private final ServiceRegistration<JsonMapper> jsonMapper;
-    private final ServiceRegistration<VirtualHostManager> virtualHostManager;
+    private final ServiceRegistration<StatusResponseCache> statusResponseCache;
+    private final ServiceRegistration<VirtualHostCache> virtualHostCache;
     private final ServiceRegistration<SessionClient> sessionClient;
+    private final ServiceRegistration<CryptoExecutor> cryptoExecutor;
+    private final ServiceRegistration<LoginAdmission> loginAdmission;
 
     public ProtocolHandshakeHandler(ServiceRegistration<EncryptionFactory> encryptionFactory,
-                                    ServiceRegistration<JsonMapper> jsonMapper,
-                                    ServiceRegistration<VirtualHostManager> virtualHostManager,
-                                    ServiceRegistration<SessionClient> sessionClient) {
+                                    ServiceRegistration<StatusResponseCache> statusResponseCache,
+                                    ServiceRegistration<VirtualHostCache> virtualHostCache,
+                                    ServiceRegistration<SessionClient> sessionClient,
+                                    ServiceRegistration<CryptoExecutor> cryptoExecutor,
+                                    ServiceRegistration<LoginAdmission> loginAdmission) {
         this.encryptionFactory = Objects.requireNonNull(encryptionFactory, "encryptionFactory must not be null");
-        this.jsonMapper = Objects.requireNonNull(jsonMapper, "jsonMapper must not be null");
-        this.virtualHostManager = Objects.requireNonNull(virtualHostManager, "virtualHostManager must not be null");
+        this.statusResponseCache = Objects.requireNonNull(statusResponseCache, "statusResponseCache must not be null");
+        this.virtualHostCache = Objects.requireNonNull(virtualHostCache, "virtualHostCache must not be null");
         this.sessionClient = Objects.requireNonNull(sessionClient, "sessionClient must not be null");
+        this.cryptoExecutor = Objects.requireNonNull(cryptoExecutor, "cryptoExecutor must not be null");
+        this.loginAdmission = Objects.requireNonNull(loginAdmission, "loginAdmission must not be null");
     }
 
     @Override
-    protected void handlePacket(ChannelHandlerContext ctx, int packetId, ByteBuf content) {
-        switch (packetId) {
-            case 0x00:
-                // Handshake request
+    public void handlePacket(ChannelHandlerContext ctx, PacketType type, ByteBuf content) {
+        switch (type) {
+            case HANDSHAKE:
                 handleHandshakeRequest(ctx, content);
                 break;
             default:
-                throw new ProtocolException("Unexpected packet " + Integer.toHexString(packetId) + " during handshake");
+                throw new ProtocolException("Unexpected packet " + type + " during handshake");
         }
     }
 
@@ -73,39 +77,33 @@ public class ProtocolHandshakeHandler extends PacketInboundHandlerAdapter {
         int port = content.readUnsignedShort();
         int nextState = ProtocolUtils.readVarInt(content);
 
-        InitializedConnection connection = new NettyInitializedConnection(ctx.channel(), protocolVersion, serverAddress, port);
-        VirtualHostManager virtualHostManager = this.virtualHostManager.requireInstance();
-        VirtualHost virtualHost = virtualHostManager.matchHost(connection);
-        if (virtualHost == null)
-            virtualHost = virtualHostManager.getFallbackHost();
+        NettyConnection connection = NettyConnection.get(ctx.channel());
+        connection.initialize(protocolVersion, serverAddress, port);
+        VirtualHost virtualHost = virtualHostCache.requireInstance().matchHost(connection);
         if (virtualHost == null)
             throw new IllegalStateException("No fallback host found");
 
-        DecidedConnection decidedConnection = new NettyDecidedConnection(ctx.channel(), protocolVersion, serverAddress, port, virtualHost);
-
         switch (nextState) {
             case 1:
                 // Next state: STATUS
-                setupStatus(ctx, decidedConnection);
+                connection.decide(virtualHost, ConnectionState.STATUS);
+                setupStatus(ctx, connection);
                 break;
             case 2:
                 // Next state: LOGIN
-                setupLogin(ctx, decidedConnection);
+                connection.decide(virtualHost, ConnectionState.LOGIN);
+                setupLogin(ctx, connection);
                 break;
             default:
                 throw new ProtocolException("Unexpected next state " + nextState);
         }
     }
 
-    protected void setupStatus(ChannelHandlerContext ctx, DecidedConnection connection) {
-        replaceHandler(ctx, ProtocolStatusHandler.HANDLER_NAME, new ProtocolStatusHandler(jsonMapper, connection));
-    }
-
-    protected void setupLogin(ChannelHandlerContext ctx, DecidedConnection connection) {
-        replaceHandler(ctx, ProtocolLoginHandler.HANDLER_NAME, new ProtocolLoginHandler(encryptionFactory, sessionClient, connection));
+    protected void setupStatus(ChannelHandlerContext ctx, NettyConnection connection) {
+        ProtocolStateHandler.get(ctx).switchTo(new ProtocolStatusHandler(statusResponseCache, connection));
     }
 
-    private static void replaceHandler(ChannelHandlerContext ctx, String newName, ChannelHandler newHandler) {
-        ctx.channel().pipeline().replace(HANDLER_NAME, newName, newHandler);
+    protected void setupLogin(ChannelHandlerContext ctx, NettyConnection connection) {
+        ProtocolStateHandler.get(ctx).switchTo(new ProtocolLoginHandler(encryptionFactory, sessionClient, cryptoExecutor, loginAdmission, connection));
     }
 }
@@ -23,15 +23,17 @@ import io.lunamc.common.login.encryption.EncryptionFactory;
 import io.lunamc.common.login.session.Profile;
 import io.lunamc.common.login.session.SessionClient;
 import io.lunamc.common.login.session.StaticProfile;
-import io.lunamc.common.network.AuthorizedConnection;
-import io.lunamc.common.network.DecidedConnection;
-import io.lunamc.plugins.netty.network.NettyAuthorizedConnection;
+import io.lunamc.plugins.netty.login.LoginAdmission;
+import io.lunamc.plugins.netty.login.encryption.CryptoExecutor;
+import io.lunamc.plugins.netty.login.encryption.RsaCiphers;
+import io.lunamc.plugins.netty.network.NettyConnection;
+import io.lunamc.plugins.netty.protocol.PacketTable;
+import io.lunamc.plugins.netty.protocol.PacketType;
 import io.lunamc.plugins.netty.protocol.ProtocolException;
 import io.lunamc.plugins.netty.utils.NettyUtils;
 import io.lunamc.protocol.ChannelHandlerContextUtils;
 import io.lunamc.protocol.ProtocolUtils;
 import io.lunamc.protocol.handler.LengthLimitedFrameDecoder;
-import io.lunamc.protocol.handler.PacketInboundHandlerAdapter;
 import io.lunamc.protocol.handler.PacketLengthPrepender;
 import io.lunamc.protocol.handler.cipher.CipherDecoder;
 import io.lunamc.protocol.handler.cipher.CipherEncoder;
@@ -39,7 +41,6 @@ import io.lunamc.protocol.handler.compression.PacketCompressor;
 import io.lunamc.protocol.handler.compression.PacketDecompressor;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -48,26 +49,26 @@ import org.slf4j.MarkerFactory;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.zip.Deflater;
 
-public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
+public class ProtocolLoginHandler implements PacketHandler {
 
-    public static final String HANDLER_NAME = "login-handler";
     private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolLoginHandler.class);
     private static final Marker MARKER_COMPRESSION = MarkerFactory.getMarker("COMPRESSION");
     // ToDo: What should be the max length
     // Clarification: The -1 disables the warning of IntelliJ that an integer can never be greater than its max value
     private static final int MAX_SHARED_SECRET_LENGTH = Integer.MAX_VALUE - 1;
     private static final int MC_1_7_PROTOCOL_VERSION = 5;
+    private static final String DISCONNECT_QUEUE_FULL = "{\"text\":\"Too many players are logging in. Please try again later.\"}";
+    private static final String DISCONNECT_QUEUE_TIMEOUT = "{\"text\":\"The server is busy. Please try again later.\"}";
+    private static final String DISCONNECT_AUTHORIZATION_FAILED = "{\"text\":\"Failed to verify username!\"}";
     private static final String SERVER_ID;
 
     static {
@@ -82,35 +83,40 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
 
     private final ServiceRegistration<EncryptionFactory> encryptionFactory;
     private final ServiceRegistration<SessionClient> sessionClient;
-    private final DecidedConnection connection;
+    private final ServiceRegistration<CryptoExecutor> cryptoExecutor;
+    private final ServiceRegistration<LoginAdmission> loginAdmission;
+    private final NettyConnection connection;
     protected boolean authenticated;
     protected boolean encrypted;
+    protected boolean decrypting;
     protected Encryption encryption;
     protected String loginData;
     protected SecretKey secret;
+    protected LoginAdmission.Ticket loginTicket;
 
     public ProtocolLoginHandler(ServiceRegistration<EncryptionFactory> encryptionFactory,
                                 ServiceRegistration<SessionClient> sessionClient,
-                                DecidedConnection connection) {
-        if (isSharable())
-            throw new IllegalStateException("@Sharable not allowed here");
-
+                                ServiceRegistration<CryptoExecutor> cryptoExecutor,
+                                ServiceRegistration<LoginAdmission> loginAdmission,
+                                NettyConnection connection) {
         this.encryptionFactory = Objects.requireNonNull(encryptionFactory, "encryptionFactory must not be null");
         this.sessionClient = Objects.requireNonNull(sessionClient, "sessionClient must not be null");
+        this.cryptoExecutor = Objects.requireNonNull(cryptoExecutor, "cryptoExecutor must not be null");
+        this.loginAdmission = Objects.requireNonNull(loginAdmission, "loginAdmission must not be null");
         this.connection = Objects.requireNonNull(connection, "connection must not be null");
     }
 
     @Override
-    protected void handlePacket(ChannelHandlerContext ctx, int packetId, ByteBuf content) {
-        switch (packetId) {
-            case 0x00:
-                // Login assertStarted
+    public void handlePacket(ChannelHandlerContext ctx, PacketType type, ByteBuf content) {
+        switch (type) {
+            case LOGIN_START:
                 handleLoginStart(ctx, content);
                 break;
-            case 0x01:
-                // Encryption response
+            case LOGIN_ENCRYPTION_RESPONSE:
                 handleEncryptionResponse(ctx, content);
                 break;
+            default:
+                throw new ProtocolException("Unexpected packet " + type + " during login");
         }
     }
 
@@ -118,14 +124,39 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
         if (loginData != null)
             throw new ProtocolException("Login already started");
         loginData = ProtocolUtils.readString(content);
+
+        loginTicket = loginAdmission.requireInstance().acquire(
+                ctx.channel(),
+                () -> runAdmissionCallback(ctx, () -> startLogin(ctx)),
+                () -> runAdmissionCallback(ctx, () -> disconnect(ctx, DISCONNECT_QUEUE_TIMEOUT))
+        );
+        if (loginTicket == null)
+            disconnect(ctx, DISCONNECT_QUEUE_FULL);
+    }
+
+    // Admission callbacks are not invoked through the pipeline, so exceptions are passed to it explicitly
+    private void runAdmissionCallback(ChannelHandlerContext ctx, Runnable callback) {
+        if (!ctx.executor().inEventLoop()) {
+            ctx.executor().execute(() -> runAdmissionCallback(ctx, callback));
+            return;
+        }
+        try {
+            callback.run();
+        } catch (Throwable throwable) {
+            if (loginTicket != null)
+                loginTicket.release();
+            ctx.fireExceptionCaught(throwable);
+        }
+    }
+
+    protected void startLogin(ChannelHandlerContext ctx) {
         authenticated = connection.getVirtualHost().isAuthenticated(connection);
 
         if (authenticated) {
             encryption = encryptionFactory.requireInstance().create(connection, loginData);
 
             ByteBuf output = ctx.alloc().buffer();
-            // Packet id for encryption request (0x01)
-            ProtocolUtils.writeVarInt(output, 0x01);
+            ProtocolUtils.writeVarInt(output, connection.getPacketTable().getPacketId(PacketType.LOGIN_ENCRYPTION_REQUEST));
             // Server id (empty in > 1.7.x)
             ProtocolUtils.writeString(output, connection.getProtocolVersion() <= MC_1_7_PROTOCOL_VERSION ? SERVER_ID : "");
             // Public key length + data
@@ -145,8 +176,8 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
 
     protected void handleEncryptionResponse(ChannelHandlerContext ctx, ByteBuf content) {
         if (encryption == null)
-            throw new ProtocolException("Expect 0x00 before 0x01");
-        else if (encrypted)
+            throw new ProtocolException("Expect " + PacketType.LOGIN_START + " before " + PacketType.LOGIN_ENCRYPTION_RESPONSE);
+        else if (encrypted || decrypting)
             throw new ProtocolException("Already encrypted");
 
         // Read shared secret
@@ -156,11 +187,40 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
         byte[] sharedSecret = new byte[sharedSecretLength];
         content.readBytes(sharedSecret);
 
-        // Check returned verify token
+        // Read returned verify token
         int verifyBytesLength = ProtocolUtils.readVarInt(content);
         byte[] verifyBytes = new byte[verifyBytesLength];
         content.readBytes(verifyBytes);
-        Cipher decryptCipher = createDecryptCipher();
+
+        // RSA decryption is expensive so it's done by the crypto executor. Reading is paused until the cipher is
+        // installed because the client may already send encrypted data.
+        decrypting = true;
+        ctx.channel().config().setAutoRead(false);
+        PrivateKey privateKey = encryption.getKeyPair().getPrivate();
+        cryptoExecutor.requireInstance().submit(() -> decryptSharedSecret(privateKey, sharedSecret, verifyBytes))
+                .whenComplete((decryptedSharedSecret, cause) -> {
+                    try {
+                        ctx.executor().execute(() -> {
+                            decrypting = false;
+                            if (cause != null) {
+                                ctx.fireExceptionCaught(cause instanceof RejectedExecutionException ?
+                                        new ProtocolException("Too many concurrent logins", cause) :
+                                        cause);
+                            } else if (ctx.channel().isActive()) {
+                                enableEncryption(ctx, decryptedSharedSecret);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // The event loop is shutting down so reading would never be resumed
+                        ctx.channel().close();
+                    }
+                });
+    }
+
+    private byte[] decryptSharedSecret(PrivateKey privateKey, byte[] sharedSecret, byte[] verifyBytes) {
+        Cipher decryptCipher = RsaCiphers.decryptCipher(privateKey);
+
+        // Check returned verify token
         byte[] decryptedVerifyBytes;
         try {
             decryptedVerifyBytes = decryptCipher.doFinal(verifyBytes);
@@ -170,19 +230,27 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
         if (!Arrays.equals(encryption.getVerifyBytes(), decryptedVerifyBytes))
             throw new ProtocolException("Verify token does not match");
 
-        // Setup shared secret key
-        byte[] decryptedSharedSecret;
+        // Decrypt shared secret
         try {
-            decryptedSharedSecret = decryptCipher.doFinal(sharedSecret);
+            return decryptCipher.doFinal(sharedSecret);
         } catch (IllegalBlockSizeException | BadPaddingException e) {
             throw new ProtocolException("Invalid shared secret", e);
         }
+    }
+
+    private void enableEncryption(ChannelHandlerContext ctx, byte[] decryptedSharedSecret) {
         secret = new SecretKeySpec(decryptedSharedSecret, "AES");
 
-        ctx.channel().pipeline()
-                .addBefore(PacketLengthPrepender.HANDLER_NAME, CipherEncoder.HANDLER_NAME, new CipherEncoder(secret))
-                .addBefore(LengthLimitedFrameDecoder.HANDLER_NAME, CipherDecoder.HANDLER_NAME, new CipherDecoder(secret));
+        PacketCodec codec = ctx.channel().pipeline().get(PacketCodec.class);
+        if (codec != null) {
+            codec.enableEncryption(secret);
+        } else {
+            ctx.channel().pipeline()
+                    .addBefore(PacketLengthPrepender.HANDLER_NAME, CipherEncoder.HANDLER_NAME, new CipherEncoder(secret))
+                    .addBefore(LengthLimitedFrameDecoder.HANDLER_NAME, CipherDecoder.HANDLER_NAME, new CipherDecoder(secret));
+        }
         encrypted = true;
+        ctx.channel().config().setAutoRead(true);
 
         authorize(ctx);
     }
@@ -190,20 +258,27 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
     private void authorize(ChannelHandlerContext ctx) {
         if (authenticated) {
             sessionClient.requireInstance().annotateJoin(loginData, connection.getProtocolVersion() <= MC_1_7_PROTOCOL_VERSION ? SERVER_ID : "", secret.getEncoded(), encryption.getKeyPair().getPublic())
-                    .thenAccept(profile -> finalizeLogin(ctx, profile));
+                    .whenComplete((profile, cause) -> ctx.executor().execute(() -> {
+                        if (cause == null) {
+                            finalizeLogin(ctx, profile);
+                        } else {
+                            LOGGER.debug("Could not authorize connection {}", ChannelHandlerContextUtils.client(ctx), cause);
+                            disconnect(ctx, DISCONNECT_AUTHORIZATION_FAILED);
+                        }
+                    }));
         } else {
             finalizeLogin(ctx, StaticProfile.createOfflineProfile(loginData));
         }
     }
 
     private void finalizeLogin(ChannelHandlerContext ctx, Profile profile) {
+        loginTicket.release();
         VirtualHost.Compression compression = setupCompression(ctx, profile);
 
         NettyUtils.debugChannelPipeline(ctx);
 
         ByteBuf output = ctx.alloc().buffer();
-        // Packet id for login success (0x02)
-        ProtocolUtils.writeVarInt(output, 0x02);
+        ProtocolUtils.writeVarInt(output, connection.getPacketTable().getPacketId(PacketType.LOGIN_SUCCESS));
         // Write uuid as string
         ProtocolUtils.writeString(output, profile.getId());
         // Write username
@@ -211,21 +286,26 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
         // Bye bye(tes)
         ctx.channel().writeAndFlush(output, ctx.voidPromise());
 
-        AuthorizedConnection authorizedConnection = new NettyAuthorizedConnection(
-                ctx.channel(),
-                connection.getProtocolVersion(),
-                connection.getServerAddress(),
-                connection.getServerPort(),
-                connection.getVirtualHost(),
-                profile,
-                compression
-        );
-        ChannelPipeline pipeline = ctx.channel().pipeline();
-        authorizedConnection.getVirtualHost().getPlayConnectionInitializer(authorizedConnection).initialize(authorizedConnection);
-        pipeline.addLast(KeepAliveHandler.HANDLER_NAME, new KeepAliveHandler());
+        connection.authorize(profile, compression);
+        // Starts the keep alives before the play handlers are added
+        ProtocolStateHandler.get(ctx).switchToPlay();
+        connection.getVirtualHost().getPlayConnectionInitializer(connection).initialize(connection);
+    }
+
+    private void disconnect(ChannelHandlerContext ctx, String reason) {
+        ByteBuf output = ctx.alloc().buffer();
+        ProtocolUtils.writeVarInt(output, connection.getPacketTable().getPacketId(PacketType.LOGIN_DISCONNECT));
+        // Write reason as chat component
+        ProtocolUtils.writeString(output, reason);
+        NettyUtils.writeFlushAndClose(ctx, output);
     }
 
     private VirtualHost.Compression setupCompression(ChannelHandlerContext ctx, Profile profile) {
+        PacketTable packetTable = connection.getPacketTable();
+        // Compression was added in 1.8
+        if (!packetTable.hasPacket(PacketType.LOGIN_SET_COMPRESSION))
+            return null;
+
         VirtualHost.Compression compression = connection.getVirtualHost().getCompression(connection, profile);
         if (compression != null) {
             int threshold = compression.getThreshold();
@@ -237,16 +317,20 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
                     LOGGER.debug(MARKER_COMPRESSION, "Compress packets for connection {} {} with threshold >= {} bytes and compression level {}", ChannelHandlerContextUtils.client(ctx), profile, threshold, level);
 
                     ByteBuf output = ctx.alloc().buffer();
-                    // Packet id for set compression (0x03)
-                    ProtocolUtils.writeVarInt(output, 0x03);
+                    ProtocolUtils.writeVarInt(output, packetTable.getPacketId(PacketType.LOGIN_SET_COMPRESSION));
                     // Write threshold as VarInt
                     ProtocolUtils.writeVarInt(output, threshold);
                     // Send packet to client
                     ctx.channel().writeAndFlush(output, ctx.voidPromise());
 
-                    ctx.channel().pipeline()
-                            .addAfter(PacketLengthPrepender.HANDLER_NAME, PacketDecompressor.HANDLER_NAME, new PacketDecompressor())
-                            .addAfter(PacketLengthPrepender.HANDLER_NAME, PacketCompressor.HANDLER_NAME, new PacketCompressor(threshold, level));
+                    PacketCodec codec = ctx.channel().pipeline().get(PacketCodec.class);
+                    if (codec != null) {
+                        codec.enableCompression(threshold, level);
+                    } else {
+                        ctx.channel().pipeline()
+                                .addAfter(PacketLengthPrepender.HANDLER_NAME, PacketDecompressor.HANDLER_NAME, new PacketDecompressor())
+                                .addAfter(PacketLengthPrepender.HANDLER_NAME, PacketCompressor.HANDLER_NAME, new PacketCompressor(threshold, level));
+                    }
 
                     return compression;
                 }
@@ -255,16 +339,4 @@ public class ProtocolLoginHandler extends PacketInboundHandlerAdapter {
 
         return null;
     }
-
-    private Cipher createDecryptCipher() {
-        PrivateKey privateKey = encryption.getKeyPair().getPrivate();
-        Cipher cipher;
-        try {
-            cipher = Cipher.getInstance("RSA");
-            cipher.init(Cipher.DECRYPT_MODE, privateKey);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException e) {
-            throw new RuntimeException(e);
-        }
-        return cipher;
-    }
 }
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.lunamc.plugins.netty.network.NettyConnection;
+import io.lunamc.plugins.netty.protocol.PacketType;
+import io.lunamc.plugins.netty.protocol.ProtocolException;
+import io.lunamc.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Dispatches the packets of a connection to the {@link PacketHandler} of its current protocol state (handshake, status
+ * or login). State changes only replace the packet handler, so the pipeline is not modified. Once the connection
+ * reaches the play state, packets are passed to the next handlers of the pipeline unchanged and keep alives are sent
+ * to the client.
+ * <p>
+ * Packet ids are resolved by the {@link io.lunamc.plugins.netty.protocol.PacketTable} of the connection's protocol
+ * version. Packets which are unknown in the current state close the connection.
+ */
+public class ProtocolStateHandler extends ChannelInboundHandlerAdapter {
+
+    public static final String HANDLER_NAME = "protocol-handler";
+
+    // Only accessed by the event loop of the channel
+    private PacketHandler packetHandler;
+    private ChannelHandlerContext ctx;
+    private NettyConnection connection;
+    private PacketType[] packetTypes;
+    private KeepAlive keepAlive;
+
+    public ProtocolStateHandler(PacketHandler packetHandler) {
+        this.packetHandler = Objects.requireNonNull(packetHandler, "packetHandler must not be null");
+    }
+
+    /**
+     * Returns the state handler which created the context passed to a {@link PacketHandler}.
+     *
+     * @param ctx The context passed to {@link PacketHandler#handlePacket(ChannelHandlerContext, PacketType, ByteBuf)}
+     * @return The state handler
+     */
+    public static ProtocolStateHandler get(ChannelHandlerContext ctx) {
+        return (ProtocolStateHandler) ctx.handler();
+    }
+
+    /**
+     * Switches to another protocol state. Subsequent packets, including the ones already read from the network, are
+     * handled by the new packet handler.
+     *
+     * @param packetHandler The packet handler of the new state
+     */
+    public void switchTo(PacketHandler packetHandler) {
+        this.packetHandler = Objects.requireNonNull(packetHandler, "packetHandler must not be null");
+        packetTypes = connection.getPacketTable().getServerboundPackets(connection.getState());
+    }
+
+    /**
+     * Switches to the play state. Subsequent packets are passed to the next handlers of the pipeline and keep alives
+     * are sent to the client.
+     */
+    public void switchToPlay() {
+        packetHandler = null;
+        packetTypes = null;
+        if (keepAlive == null) {
+            keepAlive = new KeepAlive(ctx, connection);
+            keepAlive.start();
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        connection = NettyConnection.get(ctx.channel());
+        packetTypes = connection.getPacketTable().getServerboundPackets(connection.getState());
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (keepAlive != null) {
+            keepAlive.stop();
+            keepAlive = null;
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        PacketHandler packetHandler = this.packetHandler;
+        if (packetHandler == null || !(msg instanceof ByteBuf)) {
+            // The play handlers see the keep alive responses too
+            if (keepAlive != null && msg instanceof ByteBuf)
+                keepAlive.checkKeepAliveResponse((ByteBuf) msg);
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        ByteBuf content = (ByteBuf) msg;
+        try {
+            int packetId = ProtocolUtils.readVarInt(content);
+            PacketType[] packetTypes = this.packetTypes;
+            PacketType type = packetId >= 0 && packetId < packetTypes.length ? packetTypes[packetId] : null;
+            if (type == null) {
+                String state = connection.getState().name().toLowerCase(Locale.ROOT);
+                throw new ProtocolException("Unexpected packet " + Integer.toHexString(packetId) + " during " + state);
+            }
+            packetHandler.handlePacket(ctx, type, content);
+        } finally {
+            content.release();
+        }
+    }
+}
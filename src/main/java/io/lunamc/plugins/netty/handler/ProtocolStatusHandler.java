@@ -17,58 +17,44 @@
 package io.lunamc.plugins.netty.handler;
 
 import io.lunamc.platform.service.ServiceRegistration;
-import io.lunamc.common.json.JsonMapper;
 import io.lunamc.common.network.DecidedConnection;
-import io.lunamc.common.status.StatusResponse;
+import io.lunamc.plugins.netty.protocol.PacketTables;
+import io.lunamc.plugins.netty.protocol.PacketType;
 import io.lunamc.plugins.netty.protocol.ProtocolException;
+import io.lunamc.plugins.netty.status.StatusResponseCache;
 import io.lunamc.plugins.netty.utils.NettyUtils;
 import io.lunamc.protocol.ProtocolUtils;
-import io.lunamc.protocol.handler.PacketInboundHandlerAdapter;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.util.Objects;
 
-public class ProtocolStatusHandler extends PacketInboundHandlerAdapter {
+public class ProtocolStatusHandler implements PacketHandler {
 
-    public static final String HANDLER_NAME = "status-handler";
-
-    private final ServiceRegistration<JsonMapper> jsonMapper;
+    private final ServiceRegistration<StatusResponseCache> statusResponseCache;
     private final DecidedConnection connection;
 
-    public ProtocolStatusHandler(ServiceRegistration<JsonMapper> jsonMapper, DecidedConnection connection) {
-        if (isSharable())
-            throw new IllegalStateException("@Sharable not allowed here");
-
-        this.jsonMapper = Objects.requireNonNull(jsonMapper, "jsonMapper must not be null");
+    public ProtocolStatusHandler(ServiceRegistration<StatusResponseCache> statusResponseCache, DecidedConnection connection) {
+        this.statusResponseCache = Objects.requireNonNull(statusResponseCache, "statusResponseCache must not be null");
         this.connection = Objects.requireNonNull(connection, "connection must not be null");
     }
 
     @Override
-    protected void handlePacket(ChannelHandlerContext ctx, int packetId, ByteBuf content) {
-        switch (packetId) {
-            case 0x00:
-                // Status request
+    public void handlePacket(ChannelHandlerContext ctx, PacketType type, ByteBuf content) {
+        switch (type) {
+            case STATUS_REQUEST:
                 handleStatusRequest(ctx);
                 break;
-            case 0x01:
-                // Ping request
+            case STATUS_PING_REQUEST:
                 handlePingRequest(ctx, content);
                 break;
             default:
-                throw new ProtocolException("Unexpected packet " + Integer.toHexString(packetId) + " during status");
+                throw new ProtocolException("Unexpected packet " + type + " during status");
         }
     }
 
     protected void handleStatusRequest(ChannelHandlerContext ctx) {
-        StatusResponse response = connection.getVirtualHost().getStatusProvider(connection).createStatusResponse(connection);
-        String serialized = jsonMapper.requireInstance().serialize(response);
-
-        ByteBuf output = ctx.alloc().buffer();
-        // Write packet id for status response)
-        ProtocolUtils.writeVarInt(output, 0x00);
-        // Write json status
-        ProtocolUtils.writeString(output, serialized);
+        ByteBuf output = statusResponseCache.requireInstance().getStatusResponse(connection, ctx.alloc());
         ctx.writeAndFlush(output, ctx.voidPromise());
     }
 
@@ -76,8 +62,8 @@ public class ProtocolStatusHandler extends PacketInboundHandlerAdapter {
         long payload = content.readLong();
 
         ByteBuf output = ctx.alloc().buffer();
-        // Write packet id for ping request)
-        ProtocolUtils.writeVarInt(output, 0x01);
+        // Write packet id for ping response
+        ProtocolUtils.writeVarInt(output, PacketTables.get(connection.getProtocolVersion()).getPacketId(PacketType.STATUS_PING_RESPONSE));
         // Write ping payload
         output.writeLong(payload);
         NettyUtils.writeFlushAndClose(ctx, output);
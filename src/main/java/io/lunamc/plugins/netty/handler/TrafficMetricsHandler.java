@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.lunamc.plugins.netty.metrics.ConnectionMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Counts the traffic of a connection into its {@link ConnectionMetrics}. The {@link #WIRE} instance is added to the
+ * head of the pipeline and counts the bytes sent over the network. The {@link #PACKET} instance is added behind the
+ * frame decoder and compression and counts the uncompressed packets.
+ */
+@ChannelHandler.Sharable
+public class TrafficMetricsHandler extends ChannelDuplexHandler {
+
+    public static final String HANDLER_NAME_WIRE = "wire-metrics";
+    public static final String HANDLER_NAME_PACKET = "packet-metrics";
+    public static final TrafficMetricsHandler WIRE = new TrafficMetricsHandler(false);
+    public static final TrafficMetricsHandler PACKET = new TrafficMetricsHandler(true);
+
+    private final boolean packets;
+
+    private TrafficMetricsHandler(boolean packets) {
+        this.packets = packets;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            ConnectionMetrics metrics = ConnectionMetrics.get(ctx.channel());
+            if (metrics != null) {
+                int bytes = ((ByteBuf) msg).readableBytes();
+                if (packets)
+                    metrics.packetRead(bytes);
+                else
+                    metrics.bytesRead(bytes);
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            ConnectionMetrics metrics = ConnectionMetrics.get(ctx.channel());
+            if (metrics != null) {
+                int bytes = ((ByteBuf) msg).readableBytes();
+                if (packets)
+                    metrics.packetWritten(bytes);
+                else
+                    metrics.bytesWritten(bytes);
+            }
+        }
+        ctx.write(msg, promise);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.host;
+
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.common.host.VirtualHost;
+import io.lunamc.common.host.VirtualHostManager;
+import io.lunamc.common.network.InitializedConnection;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+
+import java.net.SocketAddress;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+public class DefaultVirtualHostCache implements VirtualHostCache {
+
+    // Server addresses are chosen by the client so the number of entries must be bounded
+    private static final int MAX_ENTRIES = 1024;
+
+    private final ServiceRegistration<ServerConfiguration> config;
+    private final ServiceRegistration<VirtualHostManager> virtualHostManager;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public DefaultVirtualHostCache(ServiceRegistration<ServerConfiguration> config,
+                                   ServiceRegistration<VirtualHostManager> virtualHostManager) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.virtualHostManager = Objects.requireNonNull(virtualHostManager, "virtualHostManager must not be null");
+    }
+
+    @Override
+    public VirtualHost matchHost(InitializedConnection connection) {
+        String address = VirtualHostCache.normalizeAddress(connection.getServerAddress());
+        long ttl = TimeUnit.MILLISECONDS.toNanos(config.requireInstance().getVirtualHostCacheTtl());
+        if (ttl <= 0)
+            return match(connection, address);
+
+        long now = System.nanoTime();
+        Key key = new Key(address, connection.getServerPort());
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired(now)) {
+            VirtualHost virtualHost = match(connection, address);
+            if (virtualHost == null)
+                return null;
+            entry = new Entry(virtualHost, now + ttl);
+            if (entries.size() >= MAX_ENTRIES)
+                entries.values().removeIf(e -> e.isExpired(now));
+            if (entries.size() < MAX_ENTRIES)
+                entries.put(key, entry);
+        }
+        return entry.virtualHost;
+    }
+
+    @Override
+    public VirtualHost getFallbackHost() {
+        return virtualHostManager.requireInstance().getFallbackHost();
+    }
+
+    @Override
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private VirtualHost match(InitializedConnection connection, String address) {
+        VirtualHostManager virtualHostManager = this.virtualHostManager.requireInstance();
+        if (!address.equals(connection.getServerAddress()))
+            connection = new NormalizedConnection(connection, address);
+        VirtualHost virtualHost = virtualHostManager.matchHost(connection);
+        return virtualHost != null ? virtualHost : virtualHostManager.getFallbackHost();
+    }
+
+    // Only allocated on cache misses of connections which didn't send a normalized address
+    private static class NormalizedConnection implements InitializedConnection {
+
+        private final InitializedConnection connection;
+        private final String serverAddress;
+
+        private NormalizedConnection(InitializedConnection connection, String serverAddress) {
+            this.connection = connection;
+            this.serverAddress = serverAddress;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return connection.getRemoteAddress();
+        }
+
+        @Override
+        public boolean isLocallyConnected() {
+            return connection.isLocallyConnected();
+        }
+
+        @Override
+        public int getProtocolVersion() {
+            return connection.getProtocolVersion();
+        }
+
+        @Override
+        public String getServerAddress() {
+            return serverAddress;
+        }
+
+        @Override
+        public int getServerPort() {
+            return connection.getServerPort();
+        }
+    }
+
+    private static class Key {
+
+        private final String address;
+        private final int port;
+
+        private Key(String address, int port) {
+            this.address = address;
+            this.port = port;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            Key key = (Key) o;
+            return port == key.port && address.equals(key.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * address.hashCode() + port;
+        }
+    }
+
+    private static class Entry {
+
+        private final VirtualHost virtualHost;
+        private final long expiresAt;
+
+        private Entry(VirtualHost virtualHost, long expiresAt) {
+            this.virtualHost = virtualHost;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.host;
+
+import io.lunamc.common.host.VirtualHost;
+import io.lunamc.common.network.InitializedConnection;
+
+import java.util.Locale;
+
+/**
+ * Caches the {@link VirtualHost} matched by the {@link io.lunamc.common.host.VirtualHostManager} per server address and
+ * port, so handshakes don't have to match all virtual hosts again. Server addresses are normalized before they are
+ * matched (see {@link VirtualHostCache#normalizeAddress(String)}).
+ * <p>
+ * Plugins which add or remove virtual hosts at runtime should invalidate the cache. Otherwise changes become visible
+ * once the cached entries expire.
+ */
+public interface VirtualHostCache {
+
+    /**
+     * Returns the virtual host matching the server address and port sent by the client, or the fallback host if no
+     * virtual host matches.
+     *
+     * @param connection The connection after the handshake
+     * @return The virtual host or {@code null} if neither a virtual host matches nor a fallback host is available
+     */
+    VirtualHost matchHost(InitializedConnection connection);
+
+    /**
+     * Returns the fallback host of the {@link io.lunamc.common.host.VirtualHostManager} which is used if the client
+     * didn't send a server address (legacy pings of clients older than 1.6).
+     *
+     * @return The fallback host or {@code null} if not available
+     */
+    VirtualHost getFallbackHost();
+
+    void invalidateAll();
+
+    /**
+     * Normalizes a server address sent by the client. Everything after the first null character (like the
+     * {@code \0FML\0} marker of Forge clients) and a trailing dot (fully qualified domain names) are removed and the
+     * address is converted to lower case.
+     *
+     * @param serverAddress The server address
+     * @return The normalized address
+     */
+    static String normalizeAddress(String serverAddress) {
+        int end = serverAddress.indexOf('\0');
+        if (end < 0)
+            end = serverAddress.length();
+        if (end > 0 && serverAddress.charAt(end - 1) == '.')
+            end--;
+        boolean lowerCase = true;
+        for (int i = 0; i < end; i++) {
+            char c = serverAddress.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                lowerCase = false;
+                break;
+            }
+        }
+        String address = end == serverAddress.length() ? serverAddress : serverAddress.substring(0, end);
+        return lowerCase ? address : address.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login;
+
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.handler.IdleTimeoutHandler;
+import io.lunamc.plugins.netty.netty.EventLoopTimer;
+import io.lunamc.plugins.netty.server.LunaChannelInitializer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+public class DefaultLoginAdmission implements LoginAdmission {
+
+    private static final Object SHARED_QUEUE = new Object();
+
+    private final ServiceRegistration<ServerConfiguration> config;
+    // Queues by remote address (or a single shared queue if fairness is disabled) in the order they should be served
+    private final Map<Object, Deque<DefaultTicket>> queues = new LinkedHashMap<>();
+    private int running;
+    private int queued;
+
+    public DefaultLoginAdmission(ServiceRegistration<ServerConfiguration> config) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+    }
+
+    @Override
+    public Ticket acquire(Channel channel, Runnable admitted, Runnable timedOut) {
+        ServerConfiguration config = this.config.requireInstance();
+        ServerConfiguration.Login login = config.getLogin();
+        DefaultTicket ticket = new DefaultTicket(channel, admitted, timedOut);
+        boolean admitNow;
+        synchronized (this) {
+            int maxConcurrentLogins = login.getMaxConcurrentLogins();
+            if (maxConcurrentLogins <= 0 || (running < maxConcurrentLogins && queued == 0)) {
+                running++;
+                ticket.state = State.ADMITTED;
+                admitNow = true;
+            } else if (queued < login.getMaxQueuedLogins()) {
+                ticket.queueKey = login.isPerAddressFairness() ? queueKey(channel.remoteAddress()) : SHARED_QUEUE;
+                queues.computeIfAbsent(ticket.queueKey, key -> new ArrayDeque<>()).addLast(ticket);
+                queued++;
+                ticket.state = State.QUEUED;
+                admitNow = false;
+            } else {
+                return null;
+            }
+        }
+
+        if (admitNow) {
+            channel.eventLoop().execute(ticket::admit);
+        } else {
+            channel.eventLoop().execute(() -> ticket.enqueued(login.getQueueTimeout()));
+        }
+        channel.closeFuture().addListener((ChannelFutureListener) future -> ticket.release());
+        return ticket;
+    }
+
+    @Override
+    public synchronized int getRunningLogins() {
+        return running;
+    }
+
+    @Override
+    public synchronized int getQueuedLogins() {
+        return queued;
+    }
+
+    private void release(DefaultTicket ticket) {
+        List<DefaultTicket> admitted;
+        synchronized (this) {
+            switch (ticket.state) {
+                case QUEUED:
+                    removeQueued(ticket);
+                    ticket.state = State.RELEASED;
+                    return;
+                case ADMITTED:
+                    running--;
+                    ticket.state = State.RELEASED;
+                    admitted = admitQueued();
+                    break;
+                default:
+                    return;
+            }
+        }
+        for (DefaultTicket next : admitted)
+            next.channel.eventLoop().execute(next::admit);
+    }
+
+    private boolean timeOut(DefaultTicket ticket) {
+        synchronized (this) {
+            if (ticket.state != State.QUEUED)
+                return false;
+            removeQueued(ticket);
+            ticket.state = State.RELEASED;
+        }
+        return true;
+    }
+
+    // Must be called while holding the lock
+    private List<DefaultTicket> admitQueued() {
+        int maxConcurrentLogins = config.requireInstance().getLogin().getMaxConcurrentLogins();
+        List<DefaultTicket> admitted = new ArrayList<>(1);
+        while (queued > 0 && (maxConcurrentLogins <= 0 || running < maxConcurrentLogins)) {
+            Iterator<Map.Entry<Object, Deque<DefaultTicket>>> iterator = queues.entrySet().iterator();
+            if (!iterator.hasNext())
+                break;
+            Map.Entry<Object, Deque<DefaultTicket>> entry = iterator.next();
+            Deque<DefaultTicket> queue = entry.getValue();
+            DefaultTicket ticket = queue.pollFirst();
+            iterator.remove();
+            // Move the address to the end of the queue so other addresses are served first
+            if (!queue.isEmpty())
+                queues.put(entry.getKey(), queue);
+            if (ticket == null)
+                continue;
+            queued--;
+            running++;
+            ticket.state = State.ADMITTED;
+            admitted.add(ticket);
+        }
+        return admitted;
+    }
+
+    // Must be called while holding the lock
+    private void removeQueued(DefaultTicket ticket) {
+        Deque<DefaultTicket> queue = queues.get(ticket.queueKey);
+        if (queue != null && queue.remove(ticket)) {
+            queued--;
+            if (queue.isEmpty())
+                queues.remove(ticket.queueKey);
+        }
+    }
+
+    private static Object queueKey(SocketAddress address) {
+        if (address instanceof InetSocketAddress)
+            return ((InetSocketAddress) address).getAddress();
+        return address;
+    }
+
+    private enum State {
+        QUEUED,
+        ADMITTED,
+        RELEASED
+    }
+
+    private class DefaultTicket implements Ticket {
+
+        private final Channel channel;
+        private final Runnable admitted;
+        private final Runnable timedOut;
+        // Guarded by DefaultLoginAdmission.this
+        private State state;
+        private Object queueKey;
+        // Only accessed by the channel's event loop
+        private EventLoopTimer.Timeout timeout;
+        private IdleTimeoutHandler suspendedReadTimeout;
+
+        private DefaultTicket(Channel channel, Runnable admitted, Runnable timedOut) {
+            this.channel = channel;
+            this.admitted = admitted;
+            this.timedOut = timedOut;
+        }
+
+        @Override
+        public void release() {
+            DefaultLoginAdmission.this.release(this);
+        }
+
+        private void enqueued(int queueTimeout) {
+            synchronized (DefaultLoginAdmission.this) {
+                // May be admitted or released already
+                if (state != State.QUEUED)
+                    return;
+            }
+            // The client does not send anything while waiting for the login to proceed
+            suspendedReadTimeout = (IdleTimeoutHandler) channel.pipeline().get(LunaChannelInitializer.HANDLER_READ_TIMEOUT);
+            if (suspendedReadTimeout != null)
+                suspendedReadTimeout.setSuspended(true);
+            timeout = EventLoopTimer.get(channel.eventLoop()).schedule(() -> {
+                if (timeOut(this))
+                    timedOut.run();
+            }, queueTimeout, TimeUnit.SECONDS);
+        }
+
+        private void admit() {
+            if (timeout != null)
+                timeout.cancel();
+            if (!channel.isActive()) {
+                release();
+                return;
+            }
+            if (suspendedReadTimeout != null) {
+                suspendedReadTimeout.setSuspended(false);
+                suspendedReadTimeout = null;
+            }
+            admitted.run();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login;
+
+import io.netty.channel.Channel;
+
+/**
+ * Limits the number of logins which are processed at the same time. Logins exceeding the limit are queued until a
+ * login slot becomes available.
+ */
+public interface LoginAdmission {
+
+    /**
+     * Requests a login slot for the channel. {@code admitted} will be called on the channel's event loop once a slot is
+     * available (which may be immediately). If the login waits too long in the queue {@code timedOut} will be called on
+     * the channel's event loop instead. The slot is released automatically when the channel is closed.
+     *
+     * @param channel The channel of the login
+     * @param admitted Called when the login may proceed
+     * @param timedOut Called when the login waited too long
+     * @return The ticket of the login or {@code null} if the queue is full
+     */
+    Ticket acquire(Channel channel, Runnable admitted, Runnable timedOut);
+
+    int getRunningLogins();
+
+    int getQueuedLogins();
+
+    interface Ticket {
+
+        /**
+         * Releases the login slot (or leaves the queue) so the next queued login can proceed. Calling this method more
+         * than once has no effect.
+         */
+        void release();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.encryption;
+
+import io.lunamc.platform.service.Shutdownable;
+import io.lunamc.platform.service.Startable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Executes expensive cryptographic operations of logins (like RSA decryption) outside of the event loops so they don't
+ * stall the other connections handled by the same event loop.
+ */
+public interface CryptoExecutor extends Startable, Shutdownable {
+
+    /**
+     * Submits a task. The returned future will be completed exceptionally with a
+     * {@link java.util.concurrent.RejectedExecutionException} if the executor is saturated.
+     *
+     * @param task The task to execute
+     * @param <T> The type of the result
+     * @return A future completed with the result of the task
+     */
+    <T> CompletableFuture<T> submit(Callable<T> task);
+
+    @Override
+    default int getStartPriority() {
+        return 100;
+    }
+
+    @Override
+    default int getShutdownPriority() {
+        return 0;
+    }
+}
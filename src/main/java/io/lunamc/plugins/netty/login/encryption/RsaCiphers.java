@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.encryption;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import javax.crypto.Cipher;
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+
+public class RsaCiphers {
+
+    private static final String ALGORITHM = "RSA";
+    private static final FastThreadLocal<Cipher> CIPHERS = new FastThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() throws Exception {
+            return Cipher.getInstance(ALGORITHM);
+        }
+    };
+
+    private RsaCiphers() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is a utility class and should not be constructed");
+    }
+
+    /**
+     * Returns a RSA cipher initialized for decryption with {@code privateKey}. The cipher is cached per thread so it
+     * must not be passed to other threads.
+     *
+     * @param privateKey The private key used for decryption
+     * @return The initialized cipher
+     */
+    public static Cipher decryptCipher(PrivateKey privateKey) {
+        Cipher cipher = CIPHERS.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        } catch (InvalidKeyException e) {
+            throw new RuntimeException(e);
+        }
+        return cipher;
+    }
+}
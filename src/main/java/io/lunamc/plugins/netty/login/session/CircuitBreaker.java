@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.session;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A circuit breaker which opens after a number of consecutive failures. While open all requests fail fast. After the
+ * open time elapsed, a single request is allowed to probe the remote service and closes the circuit on success.
+ */
+public class CircuitBreaker {
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * Checks if a request may be sent.
+     *
+     * @param threshold The number of consecutive failures which open the circuit ({@code 0} disables the breaker)
+     * @param openTime The time in milliseconds the circuit stays open
+     * @return {@code true} if the request may be sent
+     */
+    public synchronized boolean tryAcquire(int threshold, long openTime) {
+        if (threshold <= 0)
+            return true;
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < TimeUnit.MILLISECONDS.toNanos(openTime))
+                    return false;
+                // Allow one probe
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                // A probe is already in flight
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure(int threshold) {
+        failures++;
+        if (threshold > 0 && (state == State.HALF_OPEN || failures >= threshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.session;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent requests to estimate latency percentiles. Additionally the number of recorded
+ * requests, their total and their maximum latency are tracked.
+ */
+public class LatencyTracker {
+
+    private static final int SAMPLES = 128;
+    private static final int MIN_SAMPLES = 16;
+
+    private final long[] latencies = new long[SAMPLES];
+    private int next;
+    private int count;
+    private long totalCount;
+    private long totalLatency;
+    private long maxLatency;
+
+    public synchronized void record(long latencyNanos) {
+        totalCount++;
+        totalLatency += latencyNanos;
+        if (latencyNanos > maxLatency)
+            maxLatency = latencyNanos;
+        latencies[next] = latencyNanos;
+        next = (next + 1) % SAMPLES;
+        if (count < SAMPLES)
+            count++;
+    }
+
+    /**
+     * Returns the given percentile of the recorded latencies.
+     *
+     * @param percentile The percentile between {@code 0} and {@code 100}
+     * @return The latency in nanoseconds or {@code -1} if not enough latencies are recorded yet
+     */
+    public long percentile(int percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < MIN_SAMPLES)
+                return -1;
+            sorted = Arrays.copyOf(latencies, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100D * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the average latency of all recorded requests.
+     *
+     * @return The average latency in nanoseconds or {@code 0} if nothing was recorded yet
+     */
+    public synchronized long getAverage() {
+        return totalCount == 0 ? 0 : totalLatency / totalCount;
+    }
+
+    /**
+     * Returns the highest latency of all recorded requests.
+     *
+     * @return The maximum latency in nanoseconds
+     */
+    public synchronized long getMax() {
+        return maxLatency;
+    }
+}
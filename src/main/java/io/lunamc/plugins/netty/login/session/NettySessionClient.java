@@ -18,94 +18,240 @@ package io.lunamc.plugins.netty.login.session;
 
 import io.lunamc.platform.service.ServiceRegistration;
 import io.lunamc.platform.service.Shutdownable;
+import io.lunamc.platform.service.Startable;
 import io.lunamc.common.json.JsonMapper;
 import io.lunamc.common.login.session.Profile;
 import io.lunamc.common.login.session.SessionClient;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
 import io.lunamc.plugins.netty.netty.EventLoopGroupHolder;
 import io.lunamc.plugins.netty.utils.HexUtils;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
-public class NettySessionClient implements SessionClient, Shutdownable {
+public class NettySessionClient implements SessionClient, Startable, Shutdownable {
 
-    private static final String URL = "https://sessionserver.mojang.com/session/minecraft/hasJoined?username=%s&serverId=%s";
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettySessionClient.class);
+    private static final Marker MARKER_PERFORMANCE = MarkerFactory.getMarker("PERFORMANCE");
     private static final String HASHING_ALGORITHM = "SHA1";
+    private static final FastThreadLocal<MessageDigest> DIGESTS = new FastThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() throws Exception {
+            return MessageDigest.getInstance(HASHING_ALGORITHM);
+        }
+    };
 
+    private final ServiceRegistration<ServerConfiguration> config;
     private final ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder;
     private final ServiceRegistration<JsonMapper> jsonMapper;
-    private DefaultAsyncHttpClient client;
+    private final ResilientRequestExecutor requestExecutor;
+    // Read by the event loops and the scheduler of the request executor, (re-)created while holding the lock
+    private volatile DefaultAsyncHttpClient client;
 
-    public NettySessionClient(ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder,
+    public NettySessionClient(ServiceRegistration<ServerConfiguration> config,
+                              ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder,
                               ServiceRegistration<JsonMapper> jsonMapper) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
         this.eventLoopGroupHolder = Objects.requireNonNull(eventLoopGroupHolder, "eventLoopGroupHolder must not be null");
         this.jsonMapper = Objects.requireNonNull(jsonMapper, "jsonMapper must not be null");
+        requestExecutor = new ResilientRequestExecutor(
+                () -> config.requireInstance().getSession(),
+                () -> eventLoopGroupHolder.requireInstance().getWorkerGroup()
+        );
     }
 
     @Override
     public CompletableFuture<Profile> annotateJoin(String username, String serverId, byte[] sharedSecret, PublicKey publicKey) {
-        MessageDigest md = createMessageDigest();
+        MessageDigest md = DIGESTS.get();
+        md.reset();
         md.update(serverId.getBytes(CharsetUtil.ISO_8859_1));
         md.update(sharedSecret);
         md.update(publicKey.getEncoded());
         String sha = HexUtils.toHexTwosComplement(md.digest());
 
-        String url = String.format(URL, encode(username), encode(sha));
-        CompletableFuture<Response> response = getClient().prepareGet(url).execute().toCompletableFuture();
-        return response.thenApply(r -> {
-            if (r == null || !r.hasResponseBody())
-                throw new UnsupportedOperationException("No response");
-            int status = r.getStatusCode();
-            if (status < 200 || status > 299 || status == HttpResponseStatus.NO_CONTENT.code())
-                throw new UnsupportedOperationException("Unexpected status code: " + status);
-            String responseBody = r.getResponseBody();
-            if (responseBody == null || responseBody.length() < 1)
-                throw new UnsupportedOperationException("No response body");
-            return jsonMapper.requireInstance().deserialize(Profile.class, r.getResponseBody());
+        ServerConfiguration.Session config = this.config.requireInstance().getSession();
+        String baseUrl = config.getUrl();
+        // The hash only consists of hexadecimal digits and the sign so it does not need to be encoded
+        String url = new StringBuilder(baseUrl.length() + username.length() + sha.length() + 22)
+                .append(baseUrl)
+                .append(baseUrl.indexOf('?') < 0 ? '?' : '&')
+                .append("username=").append(encode(username))
+                .append("&serverId=").append(sha)
+                .toString();
+        int requestTimeout = config.getRequestTimeout();
+        return requestExecutor.execute(() -> request(getClient(), url, requestTimeout, this::readProfile));
+    }
+
+    /**
+     * Requests the given url and completes with the body of a successful response read by {@code reader}. Failures
+     * which may succeed on another attempt complete with a retryable {@link SessionException} or the exception of the
+     * client (like a timeout). Cancelling the returned future aborts the request.
+     *
+     * @param client The client used for the request
+     * @param url The url to request
+     * @param requestTimeout The request timeout in milliseconds
+     * @param reader Reads the response body
+     * @param <T> The type of the result
+     * @return A future completed with the result of the reader
+     */
+    static <T> CompletableFuture<T> request(AsyncHttpClient client, String url, int requestTimeout, Function<String, T> reader) {
+        ListenableFuture<Response> response = client.prepareGet(url)
+                .setRequestTimeout(requestTimeout)
+                .execute();
+        CompletableFuture<T> result = response.toCompletableFuture()
+                .thenApply(NettySessionClient::readBody)
+                .thenApply(reader);
+        // Cancelling a dependent future does not reach the request, e.g. if the other request of a hedged pair won
+        result.whenComplete((value, cause) -> {
+            if (result.isCancelled())
+                response.cancel(true);
+        });
+        return result;
+    }
+
+    public ResilientRequestExecutor getRequestExecutor() {
+        return requestExecutor;
+    }
+
+    @Override
+    public void start() {
+        // Created before the first logins arrive instead of by the first login
+        AsyncHttpClient client = getClient();
+        ServerConfiguration.Session config = this.config.requireInstance().getSession();
+        int prewarmConnections = config.getPrewarmConnections();
+        if (prewarmConnections <= 0)
+            return;
+
+        // Opens connections (including the TLS handshake) before the first logins arrive. The response does not
+        // matter as long as the connection is kept alive and returned to the pool.
+        long start = System.nanoTime();
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[prewarmConnections];
+        for (int i = 0; i < prewarmConnections; i++) {
+            requests[i] = client.prepareHead(config.getUrl())
+                    .setRequestTimeout(config.getRequestTimeout())
+                    .execute()
+                    .toCompletableFuture();
+        }
+        CompletableFuture.allOf(requests).whenComplete((result, cause) -> {
+            long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (cause == null)
+                LOGGER.info(MARKER_PERFORMANCE, "Prewarmed {} connections to {} (took {} ms)", prewarmConnections, config.getUrl(), time);
+            else
+                LOGGER.warn(MARKER_PERFORMANCE, "Could not prewarm connections to {}", config.getUrl(), cause);
         });
     }
 
+    @Override
+    public int getStartPriority() {
+        // Requires the event loop groups
+        return 50;
+    }
+
     @Override
     public void shutdown() {
+        LatencyTracker latencyTracker = requestExecutor.getLatencyTracker();
+        if (latencyTracker.getCount() > 0) {
+            LOGGER.info(MARKER_PERFORMANCE, "Session server latency: requests={}, average={} ms, p99={} ms, max={} ms",
+                    latencyTracker.getCount(),
+                    TimeUnit.NANOSECONDS.toMillis(latencyTracker.getAverage()),
+                    TimeUnit.NANOSECONDS.toMillis(latencyTracker.percentile(99)),
+                    TimeUnit.NANOSECONDS.toMillis(latencyTracker.getMax()));
+        }
+
+        DefaultAsyncHttpClient client;
+        synchronized (this) {
+            client = this.client;
+            this.client = null;
+        }
         if (client != null)
             client.close();
     }
 
     private AsyncHttpClient getClient() {
-        if (client == null || client.isClosed()) {
-            // Creates client initially
-            client = createClient();
-        } else {
-            // Previous event loop group was terminated but a new instance may be available in the EventLoopGroupHolder
-            EventLoopGroup eventLoopGroup = client.getEventLoopGroup();
-            if (!isAvailable(eventLoopGroup))
-                client = createClient();
-            if (!isAvailable(client.getEventLoopGroup()))
-                throw new IllegalStateException("Event loop group is (still) not available");
+        DefaultAsyncHttpClient client = this.client;
+        if (isUsable(client))
+            return client;
+        return recreateClient();
+    }
+
+    private synchronized DefaultAsyncHttpClient recreateClient() {
+        DefaultAsyncHttpClient client = this.client;
+        // Another thread may have created the client while waiting for the lock
+        if (isUsable(client))
+            return client;
+        // Previous event loop group was terminated but a new instance may be available in the EventLoopGroupHolder
+        if (client != null && !client.isClosed())
+            client.close();
+        client = createClient();
+        if (!isAvailable(client.getEventLoopGroup())) {
+            client.close();
+            throw new IllegalStateException("Event loop group is (still) not available");
         }
+        this.client = client;
         return client;
     }
 
     private DefaultAsyncHttpClient createClient() {
         EventLoopGroupHolder eventLoopGroupHolder = this.eventLoopGroupHolder.requireInstance();
+        ServerConfiguration.Session config = this.config.requireInstance().getSession();
         return new DefaultAsyncHttpClient(new DefaultAsyncHttpClientConfig.Builder()
                 .setEventLoopGroup(eventLoopGroupHolder.getWorkerGroup())
                 .setUseNativeTransport(false)
+                .setKeepAlive(true)
+                .setMaxConnections(toLimit(config.getMaxConnections()))
+                .setMaxConnectionsPerHost(toLimit(config.getMaxConnections()))
+                .setPooledConnectionIdleTimeout(config.getPooledConnectionIdleTimeout())
+                .setConnectionTtl(toLimit(config.getConnectionTtl()))
                 .build());
     }
 
+    private static int toLimit(int value) {
+        // AsyncHttpClient uses -1 for unlimited
+        return value > 0 ? value : -1;
+    }
+
+    private Profile readProfile(String responseBody) {
+        return jsonMapper.requireInstance().deserialize(Profile.class, responseBody);
+    }
+
+    private static String readBody(Response response) {
+        if (response == null)
+            throw new SessionException("No response", true);
+        int status = response.getStatusCode();
+        if (status == HttpResponseStatus.TOO_MANY_REQUESTS.code() || status >= 500)
+            throw new SessionException("Session server failed with status code: " + status, true);
+        if (status < 200 || status > 299 || status == HttpResponseStatus.NO_CONTENT.code())
+            throw new SessionException("Unexpected status code: " + status, false);
+        // The session server always answers with UTF-8, so don't look up the charset of the content type
+        String responseBody = response.getResponseBody(CharsetUtil.UTF_8);
+        if (responseBody == null || responseBody.isEmpty())
+            throw new SessionException("No response body", false);
+        return responseBody;
+    }
+
+    private static boolean isUsable(DefaultAsyncHttpClient client) {
+        return client != null && !client.isClosed() && isAvailable(client.getEventLoopGroup());
+    }
+
     private static boolean isAvailable(EventLoopGroup eventLoopGroup) {
         return !eventLoopGroup.isShuttingDown() && !eventLoopGroup.isShutdown() && !eventLoopGroup.isTerminated();
     }
@@ -117,12 +263,4 @@ public class NettySessionClient implements SessionClient, Shutdownable {
             throw new RuntimeException(e);
         }
     }
-
-    private static MessageDigest createMessageDigest() {
-        try {
-            return MessageDigest.getInstance(HASHING_ALGORITHM);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
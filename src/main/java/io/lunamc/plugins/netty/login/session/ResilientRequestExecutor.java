@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.session;
+
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Executes requests to the session server with retries, optional hedged requests and a circuit breaker. Requests are
+ * expected to enforce their own timeout. Once a request of a hedged pair succeeds, the other one is cancelled, so
+ * requests should abort when their future is cancelled.
+ */
+public class ResilientRequestExecutor {
+
+    private final Supplier<ServerConfiguration.Session> config;
+    private final Supplier<ScheduledExecutorService> scheduler;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+
+    public ResilientRequestExecutor(Supplier<ServerConfiguration.Session> config, Supplier<ScheduledExecutorService> scheduler) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler must not be null");
+    }
+
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(request, result, 0);
+        return result;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result, int retry) {
+        ServerConfiguration.Session config = this.config.get();
+        if (!circuitBreaker.tryAcquire(config.getCircuitBreakerThreshold(), config.getCircuitBreakerOpenTime())) {
+            result.completeExceptionally(new SessionException("Session server is unavailable (circuit breaker open)", false));
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean done = new AtomicBoolean();
+        Queue<CompletableFuture<T>> requests = new ConcurrentLinkedQueue<>();
+        BiConsumer<T, Throwable> handler = (value, cause) -> {
+            if (cause == null) {
+                if (done.compareAndSet(false, true)) {
+                    latencyTracker.record(System.nanoTime() - start);
+                    circuitBreaker.onSuccess();
+                    result.complete(value);
+                    // The other request would hold a connection until it completes or times out
+                    cancel(requests);
+                }
+            } else if (pending.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                // All outstanding requests of this attempt failed
+                Throwable unwrapped = unwrap(cause);
+                if (isRetryable(unwrapped)) {
+                    circuitBreaker.onFailure(config.getCircuitBreakerThreshold());
+                    if (retry < config.getMaxRetries()) {
+                        long backoff = (long) config.getRetryBackoff() * (retry + 1);
+                        scheduler.get().schedule(() -> attempt(request, result, retry + 1), backoff, TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                } else {
+                    // The session server answered, so it's healthy
+                    circuitBreaker.onSuccess();
+                }
+                result.completeExceptionally(unwrapped);
+            }
+        };
+        CompletableFuture<T> primary = send(request, handler, requests, done);
+
+        int hedgePercentile = config.getHedgePercentile();
+        if (hedgePercentile > 0) {
+            long delay = latencyTracker.percentile(hedgePercentile);
+            if (delay >= 0) {
+                delay = Math.max(delay, TimeUnit.MILLISECONDS.toNanos(config.getHedgeMinDelay()));
+                scheduler.get().schedule(() -> {
+                    // Don't send a duplicate if the primary request finished in the meantime
+                    if (primary != null && !primary.isDone() && !done.get() && incrementIfPending(pending))
+                        send(request, handler, requests, done);
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> request, BiConsumer<T, Throwable> handler,
+                                                 Queue<CompletableFuture<T>> requests, AtomicBoolean done) {
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (Throwable e) {
+            handler.accept(null, e);
+            return null;
+        }
+        requests.add(future);
+        // The other request may have won before this one was added
+        if (done.get())
+            future.cancel(true);
+        future.whenComplete(handler);
+        return future;
+    }
+
+    private static void cancel(Queue<? extends CompletableFuture<?>> requests) {
+        for (CompletableFuture<?> request : requests)
+            request.cancel(true);
+    }
+
+    private static boolean incrementIfPending(AtomicInteger pending) {
+        // Once all requests of an attempt failed the attempt is over and must not be extended
+        for (;;) {
+            int current = pending.get();
+            if (current == 0)
+                return false;
+            if (pending.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    private static boolean isRetryable(Throwable cause) {
+        return !(cause instanceof SessionException) || ((SessionException) cause).isRetryable();
+    }
+
+    private static Throwable unwrap(Throwable cause) {
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+            cause = cause.getCause();
+        return cause;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.session;
+
+/**
+ * Thrown if a request to the session server failed.
+ */
+public class SessionException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public SessionException(String message, boolean retryable) {
+        super(message);
+
+        this.retryable = retryable;
+    }
+
+    public SessionException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+
+        this.retryable = retryable;
+    }
+
+    /**
+     * Returns if the request may succeed if it is repeated. This is the case for server errors but not if the session
+     * server rejected the login.
+     *
+     * @return {@code true} if the request may be retried
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
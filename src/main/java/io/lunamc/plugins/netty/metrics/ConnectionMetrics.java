@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.metrics;
+
+import io.lunamc.plugins.netty.network.ConnectionState;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.AttributeKey;
+
+/**
+ * The traffic of a single connection. The counters are only updated by the event loop of the connection (which also
+ * updates the global counters of the {@link NetworkMetrics}) but may be read by any thread.
+ */
+public class ConnectionMetrics {
+
+    private static final AttributeKey<ConnectionMetrics> KEY = AttributeKey.valueOf(ConnectionMetrics.class, "metrics");
+
+    private final DefaultNetworkMetrics global;
+    // Volatile to publish the values to other threads. Updates are not atomic, so there must only be a single writer.
+    private volatile long bytesRead;
+    private volatile long bytesWritten;
+    private volatile long packetsRead;
+    private volatile long packetsWritten;
+    private volatile long packetBytesRead;
+    private volatile long packetBytesWritten;
+    private volatile ConnectionState state;
+    private boolean closed;
+
+    private ConnectionMetrics(DefaultNetworkMetrics global) {
+        this.global = global;
+    }
+
+    static ConnectionMetrics attach(DefaultNetworkMetrics global, Channel channel) {
+        ConnectionMetrics metrics = new ConnectionMetrics(global);
+        channel.attr(KEY).set(metrics);
+        metrics.setState(ConnectionState.HANDSHAKE);
+        channel.closeFuture().addListener((ChannelFutureListener) future -> metrics.close());
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of a connection.
+     *
+     * @param channel The channel of the connection
+     * @return The metrics or {@code null} if the connection is not tracked
+     */
+    public static ConnectionMetrics get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    public void bytesRead(int bytes) {
+        bytesRead += bytes;
+        global.bytesRead.add(bytes);
+    }
+
+    public void bytesWritten(int bytes) {
+        bytesWritten += bytes;
+        global.bytesWritten.add(bytes);
+    }
+
+    public void packetRead(int bytes) {
+        packetsRead++;
+        packetBytesRead += bytes;
+        global.packetsRead.increment();
+        global.packetBytesRead.add(bytes);
+    }
+
+    public void packetWritten(int bytes) {
+        packetsWritten++;
+        packetBytesWritten += bytes;
+        global.packetsWritten.increment();
+        global.packetBytesWritten.add(bytes);
+    }
+
+    /**
+     * Moves the connection to another state. Must be called by the event loop of the connection.
+     *
+     * @param state The new state
+     */
+    public void setState(ConnectionState state) {
+        if (closed || this.state == state)
+            return;
+        global.stateChanged(this.state, state);
+        this.state = state;
+    }
+
+    public ConnectionState getState() {
+        return state;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getPacketsRead() {
+        return packetsRead;
+    }
+
+    public long getPacketsWritten() {
+        return packetsWritten;
+    }
+
+    public long getPacketBytesRead() {
+        return packetBytesRead;
+    }
+
+    public long getPacketBytesWritten() {
+        return packetBytesWritten;
+    }
+
+    private void close() {
+        if (closed)
+            return;
+        global.stateChanged(state, null);
+        closed = true;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.metrics;
+
+import io.lunamc.plugins.netty.network.ConnectionState;
+import io.netty.channel.Channel;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class DefaultNetworkMetrics implements NetworkMetrics {
+
+    final LongAdder bytesRead = new LongAdder();
+    final LongAdder bytesWritten = new LongAdder();
+    final LongAdder packetsRead = new LongAdder();
+    final LongAdder packetsWritten = new LongAdder();
+    final LongAdder packetBytesRead = new LongAdder();
+    final LongAdder packetBytesWritten = new LongAdder();
+    private final LongAdder[] openConnections = new LongAdder[ConnectionState.values().length];
+
+    public DefaultNetworkMetrics() {
+        for (int i = 0; i < openConnections.length; i++)
+            openConnections[i] = new LongAdder();
+    }
+
+    @Override
+    public ConnectionMetrics register(Channel channel) {
+        return ConnectionMetrics.attach(this, channel);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getPacketsRead() {
+        return packetsRead.sum();
+    }
+
+    @Override
+    public long getPacketsWritten() {
+        return packetsWritten.sum();
+    }
+
+    @Override
+    public long getPacketBytesRead() {
+        return packetBytesRead.sum();
+    }
+
+    @Override
+    public long getPacketBytesWritten() {
+        return packetBytesWritten.sum();
+    }
+
+    @Override
+    public long getOpenConnections(ConnectionState state) {
+        return openConnections[state.ordinal()].sum();
+    }
+
+    void stateChanged(ConnectionState oldState, ConnectionState newState) {
+        if (oldState != null)
+            openConnections[oldState.ordinal()].decrement();
+        if (newState != null)
+            openConnections[newState.ordinal()].increment();
+    }
+}
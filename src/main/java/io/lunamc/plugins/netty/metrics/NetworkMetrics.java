@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.metrics;
+
+import io.lunamc.plugins.netty.network.ConnectionState;
+import io.netty.channel.Channel;
+
+/**
+ * Counts the traffic of all connections of the server. Bytes are counted on the wire (compressed and encrypted) and
+ * on packet level (uncompressed). Legacy pings are only counted on the wire.
+ */
+public interface NetworkMetrics {
+
+    /**
+     * Creates and attaches the metrics of a new connection. Called by the server for every accepted connection.
+     *
+     * @param channel The channel of the connection
+     * @return The metrics of the connection
+     */
+    ConnectionMetrics register(Channel channel);
+
+    /**
+     * Returns the metrics of a single connection.
+     *
+     * @param channel The channel of the connection
+     * @return The metrics or {@code null} if the connection is not tracked
+     */
+    default ConnectionMetrics getConnectionMetrics(Channel channel) {
+        return ConnectionMetrics.get(channel);
+    }
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getPacketsRead();
+
+    long getPacketsWritten();
+
+    /**
+     * Returns the uncompressed size of all read packets.
+     *
+     * @return The number of bytes
+     */
+    long getPacketBytesRead();
+
+    /**
+     * Returns the uncompressed size of all written packets.
+     *
+     * @return The number of bytes
+     */
+    long getPacketBytesWritten();
+
+    /**
+     * Returns the number of open connections which are in the given state.
+     *
+     * @param state The state
+     * @return The number of connections
+     */
+    long getOpenConnections(ConnectionState state);
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link DefaultThreadFactory} which pins every created thread to one of the configured CPUs (round-robin). Pinning
+ * is done using <a href="https://github.com/OpenHFT/Java-Thread-Affinity">Java-Thread-Affinity</a> which must be
+ * provided on the class path. If it is not available threads will be created unpinned.
+ */
+public class AffinityThreadFactory extends DefaultThreadFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AffinityThreadFactory.class);
+    private static final String AFFINITY_CLASS = "net.openhft.affinity.Affinity";
+    private static final Method SET_AFFINITY;
+
+    static {
+        Method setAffinity = null;
+        try {
+            setAffinity = Class.forName(AFFINITY_CLASS).getMethod("setAffinity", int.class);
+        } catch (ClassNotFoundException | NoSuchMethodException ignore) {
+        }
+        SET_AFFINITY = setAffinity;
+    }
+
+    private final List<Integer> cpus;
+    private final AtomicInteger nextCpu = new AtomicInteger();
+
+    public AffinityThreadFactory(String poolName, List<Integer> cpus) {
+        super(poolName, false, Thread.NORM_PRIORITY);
+
+        this.cpus = new ArrayList<>(Objects.requireNonNull(cpus, "cpus must not be null"));
+        if (this.cpus.isEmpty())
+            throw new IllegalArgumentException("cpus must not be empty");
+    }
+
+    public static boolean isAvailable() {
+        return SET_AFFINITY != null;
+    }
+
+    @Override
+    protected Thread newThread(Runnable r, String name) {
+        int cpu = cpus.get(Math.floorMod(nextCpu.getAndIncrement(), cpus.size()));
+        return super.newThread(() -> {
+            pin(cpu);
+            r.run();
+        }, name);
+    }
+
+    private static void pin(int cpu) {
+        if (SET_AFFINITY == null)
+            return;
+        try {
+            SET_AFFINITY.invoke(null, cpu);
+            LOGGER.debug("Pinned thread {} to cpu {}", Thread.currentThread().getName(), cpu);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Unable to pin thread " + Thread.currentThread().getName() + " to cpu " + cpu, e);
+        }
+    }
+}
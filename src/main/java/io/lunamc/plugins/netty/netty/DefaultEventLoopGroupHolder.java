@@ -16,21 +16,62 @@
 
 package io.lunamc.plugins.netty.netty;
 
-import io.lunamc.plugins.netty.utils.NettyUtils;
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public class DefaultEventLoopGroupHolder implements EventLoopGroupHolder {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultEventLoopGroupHolder.class);
+    private static final Marker MARKER_PERFORMANCE = MarkerFactory.getMarker("PERFORMANCE");
+
+    private final ServiceRegistration<ServerConfiguration> config;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
+    private Transport transport;
+
+    public DefaultEventLoopGroupHolder(ServiceRegistration<ServerConfiguration> config) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+    }
 
     @Override
     public void start() {
-        bossGroup = NettyUtils.createEventLoopGroup(1);
-        workerGroup = NettyUtils.createEventLoopGroup();
+        ServerConfiguration.EventLoop config = this.config.requireInstance().getEventLoop();
+        String prefix = config.getThreadNamePrefix();
+        List<Integer> cpuAffinity = config.getCpuAffinity();
+
+        ThreadFactory workerThreadFactory;
+        if (cpuAffinity.isEmpty()) {
+            workerThreadFactory = createThreadFactory(prefix + "-worker");
+        } else {
+            if (!AffinityThreadFactory.isAvailable())
+                LOGGER.warn(MARKER_PERFORMANCE, "CPU affinity {} configured but Java-Thread-Affinity is not on the class path. Worker threads will not be pinned.", cpuAffinity);
+            workerThreadFactory = new AffinityThreadFactory(prefix + "-worker", cpuAffinity);
+        }
+
+        transport = Transports.select(config.getTransport());
+        bossGroup = transport.createEventLoopGroup(config.getBossThreads(), createThreadFactory(prefix + "-boss"));
+        workerGroup = transport.createEventLoopGroup(config.getWorkerThreads(), workerThreadFactory);
+        boolean ioRatioApplied = transport.setIoRatio(bossGroup, config.getIoRatio()) & transport.setIoRatio(workerGroup, config.getIoRatio());
+
+        LOGGER.info(MARKER_PERFORMANCE, "Event loops started: transport={}, bossThreads={}, workerThreads={}, ioRatio={}, threadNamePrefix={}, cpuAffinity={}",
+                transport.getName(),
+                countExecutors(bossGroup),
+                countExecutors(workerGroup),
+                ioRatioApplied ? config.getIoRatio() : "unsupported",
+                prefix,
+                cpuAffinity.isEmpty() ? "none" : cpuAffinity);
     }
 
     @Override
@@ -63,6 +104,22 @@ public class DefaultEventLoopGroupHolder implements EventLoopGroupHolder {
         return workerGroup;
     }
 
+    @Override
+    public Transport getTransport() {
+        return transport;
+    }
+
+    private static ThreadFactory createThreadFactory(String poolName) {
+        return new DefaultThreadFactory(poolName, false, Thread.NORM_PRIORITY);
+    }
+
+    private static int countExecutors(EventLoopGroup eventLoopGroup) {
+        int count = 0;
+        for (Object ignore : eventLoopGroup)
+            count++;
+        return count;
+    }
+
     private static boolean shouldShutDown(EventLoopGroup eventLoopGroup) {
         return !eventLoopGroup.isTerminated() && !eventLoopGroup.isShuttingDown() && !eventLoopGroup.isShutdown();
     }
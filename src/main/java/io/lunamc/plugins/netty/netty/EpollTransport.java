@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+public class EpollTransport implements Transport {
+
+    public static final String NAME = "epoll";
+    public static final EpollTransport INSTANCE = new EpollTransport();
+
+    private EpollTransport() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return Epoll.isAvailable();
+    }
+
+    @Override
+    public Throwable getUnavailabilityCause() {
+        return Epoll.unavailabilityCause();
+    }
+
+    @Override
+    public EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return new EpollEventLoopGroup(nThreads, threadFactory);
+    }
+
+    @Override
+    public boolean setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio) {
+        ((EpollEventLoopGroup) eventLoopGroup).setIoRatio(ioRatio);
+        return true;
+    }
+
+    @Override
+    public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+        return EpollServerSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends SocketChannel> getSocketChannelClass() {
+        return EpollSocketChannel.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ChannelOption<T> getNativeOption(String name) {
+        // Native options are referenced directly as they are registered under the qualified name of their declaring
+        // class (like "io.netty.channel.unix.UnixChannelOption#SO_REUSEPORT")
+        switch (name) {
+            case "SO_REUSEPORT":
+                return (ChannelOption<T>) EpollChannelOption.SO_REUSEPORT;
+            case "TCP_QUICKACK":
+                return (ChannelOption<T>) EpollChannelOption.TCP_QUICKACK;
+            case "TCP_USER_TIMEOUT":
+                return (ChannelOption<T>) EpollChannelOption.TCP_USER_TIMEOUT;
+            case "SO_BUSY_POLL":
+                return (ChannelOption<T>) EpollChannelOption.SO_BUSY_POLL;
+            default:
+                return null;
+        }
+    }
+}
@@ -26,6 +26,13 @@ public interface EventLoopGroupHolder extends Startable, Shutdownable {
 
     EventLoopGroup getWorkerGroup();
 
+    /**
+     * Returns the transport which was selected on startup and is used by the event loop groups.
+     *
+     * @return The transport or {@code null} if not started
+     */
+    Transport getTransport();
+
     @Override
     default int getStartPriority() {
         return 100;
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timing wheel bound to a single event loop. The timeouts of all channels of an event loop (read timeouts,
+ * keep alives, login deadlines) are handled by one periodic task instead of a scheduled task per channel and timeout.
+ * Timeouts are fired with a resolution of {@value #TICK_MILLIS} ms.
+ * <p>
+ * The timer is not thread-safe. It must only be used (including the cancellation of timeouts) by the thread of its
+ * event loop.
+ */
+public class EventLoopTimer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoopTimer.class);
+    private static final long TICK_MILLIS = 100;
+    private static final long TICK_DURATION = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final FastThreadLocal<EventLoopTimer> TIMERS = new FastThreadLocal<>();
+
+    private final EventExecutor executor;
+    private final Timeout[] wheel = new Timeout[WHEEL_SIZE];
+    private final List<Timeout> expired = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+    private long tick;
+    private int pending;
+    private ScheduledFuture<?> tickFuture;
+
+    private EventLoopTimer(EventExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the timer of the given event loop. Must be called by the thread of the event loop.
+     *
+     * @param executor The event loop
+     * @return The timer of the event loop
+     */
+    public static EventLoopTimer get(EventExecutor executor) {
+        if (!executor.inEventLoop())
+            throw new IllegalStateException("Timer must be accessed by its event loop");
+        EventLoopTimer timer = TIMERS.get();
+        if (timer == null || timer.executor != executor) {
+            timer = new EventLoopTimer(executor);
+            TIMERS.set(timer);
+        }
+        return timer;
+    }
+
+    /**
+     * Schedules a task which is executed by the event loop once the delay elapsed.
+     *
+     * @param task The task
+     * @param delay The delay
+     * @param unit The time unit of the delay
+     * @return The timeout which can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (tickFuture == null) {
+            // The wheel did not turn while there were no timeouts
+            tick = currentTick();
+            tickFuture = executor.scheduleAtFixedRate(this::advance, TICK_DURATION, TICK_DURATION, TimeUnit.NANOSECONDS);
+        }
+
+        long deadline = System.nanoTime() - startTime + unit.toNanos(delay);
+        long deadlineTick = Math.max(tick + 1, (deadline + TICK_DURATION - 1) / TICK_DURATION);
+        Timeout timeout = new Timeout(task, deadlineTick);
+        timeout.link();
+        pending++;
+        return timeout;
+    }
+
+    public int getPendingTimeouts() {
+        return pending;
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startTime) / TICK_DURATION;
+    }
+
+    private void advance() {
+        long target = currentTick();
+        while (tick < target) {
+            tick++;
+            for (Timeout timeout = wheel[(int) (tick & WHEEL_MASK)]; timeout != null; timeout = timeout.next) {
+                if (timeout.deadlineTick <= tick)
+                    expired.add(timeout);
+            }
+            if (expired.isEmpty())
+                continue;
+            for (Timeout timeout : expired) {
+                // An earlier task of this tick may have cancelled the timeout
+                if (!timeout.expire())
+                    continue;
+                try {
+                    timeout.task.run();
+                } catch (Throwable throwable) {
+                    LOGGER.warn("An exception was thrown by a timeout task", throwable);
+                }
+            }
+            expired.clear();
+        }
+
+        if (pending == 0) {
+            tickFuture.cancel(false);
+            tickFuture = null;
+        }
+    }
+
+    public class Timeout {
+
+        private static final int STATE_SCHEDULED = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private int state = STATE_SCHEDULED;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancels the timeout if it is not expired or cancelled already.
+         *
+         * @return {@code true} if the timeout was cancelled
+         */
+        public boolean cancel() {
+            if (state != STATE_SCHEDULED)
+                return false;
+            unlink();
+            state = STATE_CANCELLED;
+            return true;
+        }
+
+        public boolean isScheduled() {
+            return state == STATE_SCHEDULED;
+        }
+
+        public boolean isCancelled() {
+            return state == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == STATE_EXPIRED;
+        }
+
+        private boolean expire() {
+            if (state != STATE_SCHEDULED)
+                return false;
+            unlink();
+            state = STATE_EXPIRED;
+            return true;
+        }
+
+        private void unlink() {
+            int bucket = bucket();
+            if (prev == null)
+                wheel[bucket] = next;
+            else
+                prev.next = next;
+            if (next != null)
+                next.prev = prev;
+            prev = null;
+            next = null;
+            pending--;
+        }
+
+        private void link() {
+            int bucket = bucket();
+            Timeout head = wheel[bucket];
+            if (head != null)
+                head.prev = this;
+            next = head;
+            wheel[bucket] = this;
+        }
+
+        private int bucket() {
+            return (int) (deadlineTick & WHEEL_MASK);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+public class NioTransport implements Transport {
+
+    public static final String NAME = "nio";
+    public static final NioTransport INSTANCE = new NioTransport();
+
+    private NioTransport() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Throwable getUnavailabilityCause() {
+        return null;
+    }
+
+    @Override
+    public EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return new NioEventLoopGroup(nThreads, threadFactory);
+    }
+
+    @Override
+    public boolean setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio) {
+        ((NioEventLoopGroup) eventLoopGroup).setIoRatio(ioRatio);
+        return true;
+    }
+
+    @Override
+    public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+        return NioServerSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends SocketChannel> getSocketChannelClass() {
+        return NioSocketChannel.class;
+    }
+
+    @Override
+    public <T> ChannelOption<T> getNativeOption(String name) {
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.lunamc.plugins.netty.utils.SelectableImplementation;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A Netty transport (like NIO or epoll) which can be used for the event loops and channels of the server. Besides the
+ * bundled transports, transports are discovered using {@link java.util.ServiceLoader}, so a transport which needs
+ * additional libraries (like Netty's io_uring transport) can be provided by an additional plugin or library.
+ */
+public interface Transport extends SelectableImplementation {
+
+    EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory);
+
+    /**
+     * Sets the I/O ratio of the event loop group if the transport supports it.
+     *
+     * @param eventLoopGroup An event loop group created by {@link #createEventLoopGroup(int, ThreadFactory)}
+     * @param ioRatio The I/O ratio between {@code 1} and {@code 100}
+     * @return {@code true} if the I/O ratio was applied
+     */
+    boolean setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio);
+
+    Class<? extends ServerSocketChannel> getServerSocketChannelClass();
+
+    Class<? extends SocketChannel> getSocketChannelClass();
+
+    /**
+     * Returns the transport specific (native) channel option with the given name, like {@code SO_REUSEPORT} or
+     * {@code TCP_QUICKACK}.
+     *
+     * @param name The simple name of the option
+     * @param <T> The type of the option
+     * @return The option or {@code null} if it is not supported by this transport
+     */
+    <T> ChannelOption<T> getNativeOption(String name);
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.lunamc.plugins.netty.utils.ImplementationSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+public class Transports {
+
+    /**
+     * Name of the automatic transport selection. It chooses the first available transport provided by a
+     * {@link ServiceLoader} (like io_uring) and falls back to epoll and NIO.
+     */
+    public static final String AUTO = ImplementationSelector.AUTO;
+    private static final ImplementationSelector<Transport> SELECTOR = new ImplementationSelector<>(
+            "transport",
+            createCandidates(),
+            NioTransport.INSTANCE
+    );
+
+    private Transports() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is a utility class and should not be constructed");
+    }
+
+    /**
+     * Selects the transport with the given name (or {@link #AUTO}). See {@link ImplementationSelector#select(String)}.
+     *
+     * @param name The name of the requested transport
+     * @return The selected transport
+     */
+    public static Transport select(String name) {
+        return SELECTOR.select(name);
+    }
+
+    /**
+     * Returns the selected transport. If no transport was selected yet it will be selected automatically.
+     *
+     * @return The selected transport
+     */
+    public static Transport get() {
+        return SELECTOR.get();
+    }
+
+    public static Transport find(String name) {
+        return SELECTOR.find(name);
+    }
+
+    private static List<Transport> createCandidates() {
+        List<Transport> candidates = new ArrayList<>(ImplementationSelector.loadProvided(Transport.class, "transport"));
+        candidates.add(EpollTransport.INSTANCE);
+        candidates.add(NioTransport.INSTANCE);
+        return candidates;
+    }
+}
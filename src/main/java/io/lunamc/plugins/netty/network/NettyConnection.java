@@ -16,24 +16,116 @@
 
 package io.lunamc.plugins.netty.network;
 
-import io.lunamc.common.network.Connection;
+import io.lunamc.common.host.VirtualHost;
+import io.lunamc.common.login.session.Profile;
+import io.lunamc.common.network.AuthorizedConnection;
+import io.lunamc.plugins.netty.metrics.ConnectionMetrics;
+import io.lunamc.plugins.netty.protocol.PacketTable;
+import io.lunamc.plugins.netty.protocol.PacketTables;
 import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.Objects;
 
-public class NettyConnection implements Connection {
+/**
+ * The state of a connection. There is exactly one instance per channel (see {@link #get(Channel)}) which moves through
+ * the {@link ConnectionState}s in place. The properties of later states are only available once the connection reached
+ * them: the protocol version, server address and port after the handshake, the virtual host once it is decided
+ * ({@link ConnectionState#STATUS} or {@link ConnectionState#LOGIN}) and the profile and compression in
+ * {@link ConnectionState#PLAY}.
+ * <p>
+ * The state is changed by the event loop of the channel. Other threads should check {@link #getState()} before they
+ * read the properties of a state.
+ */
+public class NettyConnection implements AuthorizedConnection {
+
+    private static final AttributeKey<NettyConnection> KEY = AttributeKey.valueOf(NettyConnection.class, "connection");
 
     private final Channel channel;
     private final boolean locallyConnected;
+    private int protocolVersion = -1;
+    private PacketTable packetTable = PacketTables.get(-1);
+    private String serverAddress;
+    private int port;
+    private VirtualHost virtualHost;
+    private Profile profile;
+    private VirtualHost.Compression compression;
+    private PingStatistics pingStatistics;
+    // Written last on every transition to publish the other properties
+    private volatile ConnectionState state = ConnectionState.HANDSHAKE;
 
-    public NettyConnection(Channel channel) {
-        this.channel = Objects.requireNonNull(channel, "channel must not be null");
+    private NettyConnection(Channel channel) {
+        this.channel = channel;
         this.locallyConnected = isLocalAddress(channel.remoteAddress());
     }
 
+    /**
+     * Returns the connection of a channel. The connection is created on first access.
+     *
+     * @param channel The channel
+     * @return The connection of the channel
+     */
+    public static NettyConnection get(Channel channel) {
+        Attribute<NettyConnection> attribute = channel.attr(KEY);
+        NettyConnection connection = attribute.get();
+        if (connection == null) {
+            connection = new NettyConnection(Objects.requireNonNull(channel, "channel must not be null"));
+            NettyConnection existing = attribute.setIfAbsent(connection);
+            if (existing != null)
+                connection = existing;
+        }
+        return connection;
+    }
+
+    /**
+     * Stores the properties sent by the client with the handshake.
+     *
+     * @param protocolVersion The protocol version
+     * @param serverAddress The server address (as sent by the client)
+     * @param port The port
+     */
+    public void initialize(int protocolVersion, String serverAddress, int port) {
+        this.protocolVersion = protocolVersion;
+        this.packetTable = PacketTables.get(protocolVersion);
+        this.serverAddress = Objects.requireNonNull(serverAddress, "serverAddress must not be null");
+        this.port = port;
+        state = ConnectionState.HANDSHAKE;
+    }
+
+    /**
+     * Stores the virtual host handling the connection and moves the connection to the next state.
+     *
+     * @param virtualHost The virtual host
+     * @param nextState {@link ConnectionState#STATUS} or {@link ConnectionState#LOGIN}
+     */
+    public void decide(VirtualHost virtualHost, ConnectionState nextState) {
+        if (nextState != ConnectionState.STATUS && nextState != ConnectionState.LOGIN)
+            throw new IllegalArgumentException("Unexpected next state " + nextState);
+        this.virtualHost = Objects.requireNonNull(virtualHost, "virtualHost must not be null");
+        setState(nextState);
+    }
+
+    /**
+     * Stores the profile of the logged in player and moves the connection to {@link ConnectionState#PLAY}.
+     *
+     * @param profile The profile
+     * @param compression The compression or {@code null} if packets are not compressed
+     */
+    public void authorize(Profile profile, VirtualHost.Compression compression) {
+        this.profile = Objects.requireNonNull(profile, "profile must not be null");
+        this.compression = compression;
+        pingStatistics = new PingStatistics();
+        setState(ConnectionState.PLAY);
+    }
+
+    public ConnectionState getState() {
+        return state;
+    }
+
     @Override
     public SocketAddress getRemoteAddress() {
         return channel.remoteAddress();
@@ -44,14 +136,69 @@ public class NettyConnection implements Connection {
         return locallyConnected;
     }
 
+    @Override
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Returns the packet ids of the protocol version of this connection.
+     *
+     * @return The packet table
+     */
+    public PacketTable getPacketTable() {
+        return packetTable;
+    }
+
+    @Override
+    public String getServerAddress() {
+        return serverAddress;
+    }
+
+    @Override
+    public int getServerPort() {
+        return port;
+    }
+
+    @Override
+    public VirtualHost getVirtualHost() {
+        return virtualHost;
+    }
+
+    @Override
+    public Profile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public VirtualHost.Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Returns the round trip times measured by keep alives.
+     *
+     * @return The ping statistics or {@code null} if the connection is not in {@link ConnectionState#PLAY}
+     */
+    public PingStatistics getPingStatistics() {
+        return pingStatistics;
+    }
+
     public Channel channel() {
         return channel;
     }
 
-    private boolean isLocalAddress(SocketAddress remote) {
+    private void setState(ConnectionState state) {
+        this.state = state;
+        ConnectionMetrics metrics = ConnectionMetrics.get(channel);
+        if (metrics != null)
+            metrics.setState(state);
+    }
+
+    private static boolean isLocalAddress(SocketAddress remote) {
         if (remote instanceof InetSocketAddress) {
             InetAddress inetAddress = ((InetSocketAddress) remote).getAddress();
-            return inetAddress.isAnyLocalAddress() ||inetAddress.isLoopbackAddress();
+            return inetAddress.isAnyLocalAddress() || inetAddress.isLoopbackAddress();
         }
         return false;
     }
@@ -1,52 +0,0 @@
-/*
- *  Copyright 2017 LunaMC.io
- *
- *    Licensed under the Apache License, Version 2.0 (the "License");
- *    you may not use this file except in compliance with the License.
- *    You may obtain a copy of the License at
- *
- *        http://www.apache.org/licenses/LICENSE-2.0
- *
- *    Unless required by applicable law or agreed to in writing, software
- *    distributed under the License is distributed on an "AS IS" BASIS,
- *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *    See the License for the specific language governing permissions and
- *    limitations under the License.
- */
-
-package io.lunamc.plugins.netty.network;
-
-import io.lunamc.common.network.InitializedConnection;
-import io.netty.channel.Channel;
-
-import java.util.Objects;
-
-public class NettyInitializedConnection extends NettyConnection implements InitializedConnection {
-
-    private final int protocolVersion;
-    private final String serverAddress;
-    private final int port;
-
-    public NettyInitializedConnection(Channel channel, int protocolVersion, String serverAddress, int port) {
-        super(channel);
-
-        this.protocolVersion = protocolVersion;
-        this.serverAddress = Objects.requireNonNull(serverAddress, "serverAddress must not be null");
-        this.port = port;
-    }
-
-    @Override
-    public int getProtocolVersion() {
-        return protocolVersion;
-    }
-
-    @Override
-    public String getServerAddress() {
-        return serverAddress;
-    }
-
-    @Override
-    public int getServerPort() {
-        return port;
-    }
-}
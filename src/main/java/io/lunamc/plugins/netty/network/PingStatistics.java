@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip times of a connection measured by keep alives. Provides a smoothed estimate (like TCP's SRTT with a gain
+ * of 1/8) and a histogram of recently measured round trip times. The counts of the histogram are halved every
+ * {@value #DECAY_INTERVAL_SECONDS} seconds, so percentiles follow changes of the network latency.
+ * <p>
+ * Round trip times are recorded by the event loop of the connection but may be read by any thread.
+ */
+public class PingStatistics {
+
+    // Upper bounds of the histogram buckets in milliseconds. The last bucket is unbounded.
+    private static final long[] BUCKETS = { 1, 2, 5, 10, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 2000, 5000 };
+    private static final long DECAY_INTERVAL_SECONDS = 60;
+    private static final long DECAY_INTERVAL = TimeUnit.SECONDS.toNanos(DECAY_INTERVAL_SECONDS);
+
+    private final long[] counts = new long[BUCKETS.length + 1];
+    private long samples;
+    private long weight;
+    private long last = -1;
+    // In nanoseconds so the gain of 1/8 does not truncate differences of a few milliseconds
+    private long smoothed = -1;
+    private long lastDecay = System.nanoTime();
+
+    /**
+     * Records a round trip time.
+     *
+     * @param rtt The round trip time in nanoseconds
+     */
+    public void record(long rtt) {
+        record(rtt, System.nanoTime());
+    }
+
+    synchronized void record(long rtt, long now) {
+        decay(now);
+        last = rtt;
+        smoothed = smoothed < 0 ? rtt : smoothed + (rtt - smoothed) / 8;
+        counts[bucket(TimeUnit.NANOSECONDS.toMillis(rtt))]++;
+        weight++;
+        samples++;
+    }
+
+    /**
+     * Returns the most recently measured round trip time.
+     *
+     * @return The round trip time in milliseconds or {@code -1} if nothing was measured yet
+     */
+    public synchronized long getLastRoundTripTime() {
+        return last < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(last);
+    }
+
+    /**
+     * Returns the smoothed round trip time which is suitable to be displayed (e.g. in the tab list).
+     *
+     * @return The round trip time in milliseconds or {@code -1} if nothing was measured yet
+     */
+    public synchronized long getSmoothedRoundTripTime() {
+        return smoothed < 0 ? -1 : Math.round(smoothed / 1_000_000D);
+    }
+
+    /**
+     * Returns the number of round trip times measured since the connection was established.
+     *
+     * @return The number of samples
+     */
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns the upper bound of the histogram bucket containing the given percentile of the recently measured round
+     * trip times. The last bucket has no upper bound, so {@link Long#MAX_VALUE} is returned if the percentile falls
+     * into it.
+     *
+     * @param percentile The percentile between {@code 0} and {@code 100}
+     * @return The round trip time in milliseconds or {@code -1} if nothing was measured recently
+     */
+    public long getPercentile(double percentile) {
+        return getPercentile(percentile, System.nanoTime());
+    }
+
+    synchronized long getPercentile(double percentile, long now) {
+        decay(now);
+        if (weight == 0)
+            return -1;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100D * weight));
+        long count = 0;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            count += counts[i];
+            if (count >= rank)
+                return BUCKETS[i];
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void decay(long now) {
+        long intervals = (now - lastDecay) / DECAY_INTERVAL;
+        if (intervals <= 0)
+            return;
+        lastDecay += intervals * DECAY_INTERVAL;
+        int shift = (int) Math.min(intervals, 63);
+        weight = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] >>>= shift;
+            weight += counts[i];
+        }
+    }
+
+    private static int bucket(long millis) {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (millis <= BUCKETS[i])
+                return i;
+        }
+        return BUCKETS.length;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.protocol;
+
+import io.lunamc.plugins.netty.network.ConnectionState;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The packet ids of a range of protocol versions. The ids are compiled into arrays, so looking up the type of a
+ * received packet or the id of a packet to send is a single array access.
+ */
+public class PacketTable {
+
+    private static final PacketType[] NO_PACKETS = new PacketType[0];
+
+    private final int protocolVersion;
+    // Indexed by the ordinal of the state and the packet id
+    private final PacketType[][] serverbound;
+    // Indexed by the ordinal of the packet type, -1 if the packet does not exist
+    private final int[] packetIds;
+
+    private PacketTable(int protocolVersion, Map<PacketType, Integer> ids) {
+        this.protocolVersion = protocolVersion;
+
+        ConnectionState[] states = ConnectionState.values();
+        serverbound = new PacketType[states.length][];
+        Arrays.fill(serverbound, NO_PACKETS);
+        packetIds = new int[PacketType.values().length];
+        Arrays.fill(packetIds, -1);
+        for (Map.Entry<PacketType, Integer> entry : ids.entrySet()) {
+            PacketType type = entry.getKey();
+            int id = entry.getValue();
+            packetIds[type.ordinal()] = id;
+            if (!type.isServerbound())
+                continue;
+
+            int state = type.getState().ordinal();
+            if (serverbound[state].length <= id)
+                serverbound[state] = Arrays.copyOf(serverbound[state], id + 1);
+            if (serverbound[state][id] != null)
+                throw new IllegalStateException("Packet id " + id + " used by " + serverbound[state][id] + " and " + type);
+            serverbound[state][id] = type;
+        }
+    }
+
+    /**
+     * Returns the first protocol version using this table.
+     *
+     * @return The protocol version
+     */
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Returns the types of the packets the client may send in a state, indexed by their packet id. Ids without a known
+     * packet are {@code null} or beyond the length of the array.
+     *
+     * @param state The state of the connection
+     * @return The packet types (must not be modified)
+     */
+    public PacketType[] getServerboundPackets(ConnectionState state) {
+        return serverbound[state.ordinal()];
+    }
+
+    /**
+     * Returns the type of a packet sent by the client.
+     *
+     * @param state The state of the connection
+     * @param packetId The packet id
+     * @return The packet type or {@code null} if the packet is unknown
+     */
+    public PacketType getServerboundPacket(ConnectionState state, int packetId) {
+        PacketType[] packets = serverbound[state.ordinal()];
+        return packetId >= 0 && packetId < packets.length ? packets[packetId] : null;
+    }
+
+    /**
+     * Returns the id of a packet.
+     *
+     * @param type The packet type
+     * @return The packet id or {@code -1} if the packet does not exist in this protocol version
+     */
+    public int getPacketId(PacketType type) {
+        return packetIds[type.ordinal()];
+    }
+
+    public boolean hasPacket(PacketType type) {
+        return packetIds[type.ordinal()] >= 0;
+    }
+
+    static Builder builder(int protocolVersion) {
+        return new Builder(protocolVersion, new EnumMap<>(PacketType.class));
+    }
+
+    static class Builder {
+
+        private final int protocolVersion;
+        private final Map<PacketType, Integer> ids;
+
+        private Builder(int protocolVersion, Map<PacketType, Integer> ids) {
+            this.protocolVersion = protocolVersion;
+            this.ids = ids;
+        }
+
+        Builder id(PacketType type, int packetId) {
+            Objects.requireNonNull(type, "type must not be null");
+            if (packetId < 0)
+                throw new IllegalArgumentException("packetId must not be negative");
+            ids.put(type, packetId);
+            return this;
+        }
+
+        // Creates a builder for a later protocol version which starts with the ids of this builder
+        Builder derive(int protocolVersion) {
+            if (protocolVersion <= this.protocolVersion)
+                throw new IllegalArgumentException("protocolVersion must be greater than " + this.protocolVersion);
+            return new Builder(protocolVersion, new EnumMap<>(ids));
+        }
+
+        PacketTable build() {
+            return new PacketTable(protocolVersion, ids);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.protocol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@link PacketTable}s of all supported protocol versions. Protocol versions without a table of their own (like
+ * snapshots) use the table of the closest older version.
+ */
+public class PacketTables {
+
+    private static final int[] PROTOCOL_VERSIONS;
+    private static final PacketTable[] TABLES;
+
+    static {
+        List<PacketTable> tables = new ArrayList<>();
+
+        // 1.7.2
+        PacketTable.Builder builder = PacketTable.builder(4)
+                .id(PacketType.HANDSHAKE, 0x00)
+                .id(PacketType.STATUS_REQUEST, 0x00)
+                .id(PacketType.STATUS_PING_REQUEST, 0x01)
+                .id(PacketType.STATUS_RESPONSE, 0x00)
+                .id(PacketType.STATUS_PING_RESPONSE, 0x01)
+                .id(PacketType.LOGIN_START, 0x00)
+                .id(PacketType.LOGIN_ENCRYPTION_RESPONSE, 0x01)
+                .id(PacketType.LOGIN_DISCONNECT, 0x00)
+                .id(PacketType.LOGIN_ENCRYPTION_REQUEST, 0x01)
+                .id(PacketType.LOGIN_SUCCESS, 0x02)
+                .id(PacketType.PLAY_KEEP_ALIVE_REQUEST, 0x00)
+                .id(PacketType.PLAY_KEEP_ALIVE_RESPONSE, 0x00);
+        tables.add(builder.build());
+        // 1.8
+        builder = builder.derive(47)
+                .id(PacketType.LOGIN_SET_COMPRESSION, 0x03);
+        tables.add(builder.build());
+        // 1.9
+        builder = builder.derive(107)
+                .id(PacketType.PLAY_KEEP_ALIVE_REQUEST, 0x1f)
+                .id(PacketType.PLAY_KEEP_ALIVE_RESPONSE, 0x0b);
+        tables.add(builder.build());
+        // 1.12
+        builder = builder.derive(335)
+                .id(PacketType.PLAY_KEEP_ALIVE_RESPONSE, 0x0c);
+        tables.add(builder.build());
+        // 1.12.1
+        builder = builder.derive(338)
+                .id(PacketType.PLAY_KEEP_ALIVE_RESPONSE, 0x0b);
+        tables.add(builder.build());
+
+        PROTOCOL_VERSIONS = new int[tables.size()];
+        TABLES = tables.toArray(new PacketTable[tables.size()]);
+        for (int i = 0; i < TABLES.length; i++)
+            PROTOCOL_VERSIONS[i] = TABLES[i].getProtocolVersion();
+    }
+
+    private PacketTables() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is a utility class and should not be constructed");
+    }
+
+    /**
+     * Returns the packet table of a protocol version. Versions older than the oldest supported version use the oldest
+     * table.
+     *
+     * @param protocolVersion The protocol version
+     * @return The packet table
+     */
+    public static PacketTable get(int protocolVersion) {
+        int index = Arrays.binarySearch(PROTOCOL_VERSIONS, protocolVersion);
+        if (index < 0)
+            index = Math.max(0, -index - 2);
+        return TABLES[index];
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.protocol;
+
+import io.lunamc.plugins.netty.network.ConnectionState;
+
+/**
+ * The packets handled by this plugin. Their ids depend on the protocol version and are looked up in a
+ * {@link PacketTable}.
+ */
+public enum PacketType {
+
+    HANDSHAKE(ConnectionState.HANDSHAKE, true),
+
+    STATUS_REQUEST(ConnectionState.STATUS, true),
+    STATUS_PING_REQUEST(ConnectionState.STATUS, true),
+    STATUS_RESPONSE(ConnectionState.STATUS, false),
+    STATUS_PING_RESPONSE(ConnectionState.STATUS, false),
+
+    LOGIN_START(ConnectionState.LOGIN, true),
+    LOGIN_ENCRYPTION_RESPONSE(ConnectionState.LOGIN, true),
+    LOGIN_DISCONNECT(ConnectionState.LOGIN, false),
+    LOGIN_ENCRYPTION_REQUEST(ConnectionState.LOGIN, false),
+    LOGIN_SUCCESS(ConnectionState.LOGIN, false),
+    LOGIN_SET_COMPRESSION(ConnectionState.LOGIN, false),
+
+    PLAY_KEEP_ALIVE_REQUEST(ConnectionState.PLAY, false),
+    PLAY_KEEP_ALIVE_RESPONSE(ConnectionState.PLAY, true);
+
+    private final ConnectionState state;
+    private final boolean serverbound;
+
+    PacketType(ConnectionState state, boolean serverbound) {
+        this.state = state;
+        this.serverbound = serverbound;
+    }
+
+    public ConnectionState getState() {
+        return state;
+    }
+
+    /**
+     * Returns whether the packet is sent by the client.
+     *
+     * @return {@code true} if the packet is sent by the client, {@code false} if it is sent by the server
+     */
+    public boolean isServerbound() {
+        return serverbound;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.server;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free table of token buckets keyed by address. The table has a fixed size, so its memory is bounded. Every
+ * address may be stored in one of two slots. If both slots are occupied by other addresses, the bucket which was
+ * accessed least recently is evicted.
+ * <p>
+ * IPv6 addresses share the bucket of their /64 prefix. Hosts usually get a whole /64 assigned, so rotating the
+ * addresses within it neither bypasses the throttle nor evicts the buckets of other addresses.
+ */
+public class ConnectionRateLimiter {
+
+    private static final int MAX_SIZE = 1 << 30;
+    private static final int IPV6_PREFIX_BYTES = 8;
+
+    private final AtomicReferenceArray<Bucket> table;
+    private final int mask;
+
+    public ConnectionRateLimiter(int maxTrackedAddresses) {
+        if (maxTrackedAddresses < 1)
+            throw new IllegalArgumentException("maxTrackedAddresses must be positive");
+        int size = Integer.highestOneBit(Math.min(MAX_SIZE, Math.max(2, maxTrackedAddresses) - 1)) << 1;
+        table = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Takes a token from the bucket of the address.
+     *
+     * @param address The address
+     * @param rate The number of tokens added per second
+     * @param burst The capacity of the bucket
+     * @return {@code true} if a token was available
+     */
+    public boolean tryAcquire(InetAddress address, int rate, int burst) {
+        return tryAcquire(address, rate, burst, System.nanoTime());
+    }
+
+    boolean tryAcquire(InetAddress address, int rate, int burst, long now) {
+        boolean ipv6 = address instanceof Inet6Address;
+        long key = key(address.getAddress());
+        int hash = spread(Long.hashCode(key) ^ (ipv6 ? 1 : 0));
+        int firstIndex = hash & mask;
+        int secondIndex = spread(hash ^ 0x5bd1e995) & mask;
+        for (;;) {
+            Bucket first = table.get(firstIndex);
+            Bucket second = table.get(secondIndex);
+            int index;
+            Bucket current;
+            if (first != null && first.matches(key, ipv6)) {
+                index = firstIndex;
+                current = first;
+            } else if (second != null && second.matches(key, ipv6)) {
+                index = secondIndex;
+                current = second;
+            } else if (first == null || (second != null && first.time - second.time < 0)) {
+                index = firstIndex;
+                current = null;
+            } else {
+                index = secondIndex;
+                current = null;
+            }
+
+            double tokens;
+            if (current == null) {
+                tokens = burst;
+            } else {
+                double refill = (double) Math.max(0, now - current.time) * rate / TimeUnit.SECONDS.toNanos(1);
+                tokens = Math.min(burst, current.tokens + refill);
+            }
+            boolean acquired = tokens >= 1;
+            // Concurrent callers may have sampled the time in a different order
+            long time = current == null ? now : Math.max(now, current.time);
+            Bucket updated = new Bucket(key, ipv6, acquired ? tokens - 1 : tokens, time);
+            // Another thread updated or evicted the slot in the meantime
+            if (table.compareAndSet(index, index == firstIndex ? first : second, updated))
+                return acquired;
+        }
+    }
+
+    private static long key(byte[] address) {
+        long key = 0;
+        for (int i = 0; i < address.length && i < IPV6_PREFIX_BYTES; i++)
+            key = key << 8 | (address[i] & 0xff);
+        return key;
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Bucket {
+
+        private final long key;
+        private final boolean ipv6;
+        private final double tokens;
+        private final long time;
+
+        private Bucket(long key, boolean ipv6, double tokens, long time) {
+            this.key = key;
+            this.ipv6 = ipv6;
+            this.tokens = tokens;
+            this.time = time;
+        }
+
+        private boolean matches(long key, boolean ipv6) {
+            return this.key == key && this.ipv6 == ipv6;
+        }
+    }
+}
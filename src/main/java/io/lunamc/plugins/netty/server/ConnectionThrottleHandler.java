@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.server;
+
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Objects;
+
+/**
+ * Added to the pipeline of the server channel. Closes accepted connections of addresses which exceed their connection
+ * rate before they are registered, so no pipeline is constructed for them.
+ */
+@ChannelHandler.Sharable
+public class ConnectionThrottleHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionThrottleHandler.class);
+    private static final Marker MARKER_SERVER = MarkerFactory.getMarker("SERVER");
+
+    private final ServiceRegistration<ServerConfiguration> config;
+    private final ConnectionRateLimiter rateLimiter;
+
+    public ConnectionThrottleHandler(ServiceRegistration<ServerConfiguration> config, int maxTrackedAddresses) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        rateLimiter = new ConnectionRateLimiter(maxTrackedAddresses);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Channel && !isPermitted((Channel) msg)) {
+            Channel child = (Channel) msg;
+            LOGGER.debug(MARKER_SERVER, "Connection from {} throttled", child.remoteAddress());
+            child.unsafe().closeForcibly();
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private boolean isPermitted(Channel child) {
+        SocketAddress remoteAddress = child.remoteAddress();
+        if (!(remoteAddress instanceof InetSocketAddress))
+            return true;
+        InetAddress address = ((InetSocketAddress) remoteAddress).getAddress();
+        if (address == null)
+            return true;
+
+        ServerConfiguration.ConnectionThrottle config = this.config.requireInstance().getConnectionThrottle();
+        if (config.getRate() <= 0)
+            return true;
+        if (config.isExemptLocal() && (address.isAnyLocalAddress() || address.isLoopbackAddress()))
+            return true;
+        return rateLimiter.tryAcquire(address, config.getRate(), config.getBurst());
+    }
+}
@@ -17,21 +17,35 @@
 package io.lunamc.plugins.netty.server;
 
 import io.lunamc.platform.service.ServiceRegistration;
-import io.lunamc.common.host.VirtualHostManager;
-import io.lunamc.common.json.JsonMapper;
 import io.lunamc.common.login.encryption.EncryptionFactory;
 import io.lunamc.common.login.session.SessionClient;
+import io.lunamc.plugins.netty.cipher.CipherEngine;
+import io.lunamc.plugins.netty.cipher.CipherEngines;
+import io.lunamc.plugins.netty.compression.CompressionBackend;
+import io.lunamc.plugins.netty.compression.CompressionBackends;
+import io.lunamc.plugins.netty.compression.CompressionExecutor;
 import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.handler.IdleTimeoutHandler;
 import io.lunamc.plugins.netty.handler.LegacyPingHandler;
 import io.lunamc.plugins.netty.handler.OutboundExceptionHandler;
+import io.lunamc.plugins.netty.handler.PacketCodec;
 import io.lunamc.plugins.netty.handler.ProtocolHandshakeHandler;
+import io.lunamc.plugins.netty.handler.ProtocolStateHandler;
+import io.lunamc.plugins.netty.handler.TrafficMetricsHandler;
+import io.lunamc.plugins.netty.host.VirtualHostCache;
+import io.lunamc.plugins.netty.login.LoginAdmission;
+import io.lunamc.plugins.netty.login.encryption.CryptoExecutor;
+import io.lunamc.plugins.netty.metrics.NetworkMetrics;
+import io.lunamc.plugins.netty.shaping.TrafficShaper;
+import io.lunamc.plugins.netty.status.StatusResponseCache;
+import io.lunamc.plugins.netty.utils.ImplementationSelector;
 import io.lunamc.plugins.netty.utils.LimitedLoggingHandler;
 import io.lunamc.protocol.handler.LengthLimitedFrameDecoder;
 import io.lunamc.protocol.handler.PacketLengthPrepender;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.logging.LogLevel;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
@@ -40,9 +54,9 @@ import java.util.Objects;
 
 public class LunaChannelInitializer extends ChannelInitializer<SocketChannel> {
 
+    public static final String HANDLER_READ_TIMEOUT = "read-timeout";
     private static final Logger LOGGER = LoggerFactory.getLogger(LunaChannelInitializer.class);
     private static final boolean DEBUG = Boolean.getBoolean("io.lunamc.plugins.netty.debugChannels");
-    private static final String HANDLER_READ_TIMEOUT = "read-timeout";
     private static final String HANDLER_DEBUG = "debug";
 
     static {
@@ -51,31 +65,60 @@ public class LunaChannelInitializer extends ChannelInitializer<SocketChannel> {
     }
 
     private final ServiceRegistration<ServerConfiguration> config;
+    private final ServiceRegistration<CompressionExecutor> compressionExecutor;
+    private final ServiceRegistration<NetworkMetrics> networkMetrics;
+    private final ServiceRegistration<TrafficShaper> trafficShaper;
+    private final boolean fusedCodec;
+    private final CompressionBackend compressionBackend;
+    private final CipherEngine cipherEngine;
     private final LegacyPingHandler legacyPingHandler;
     private final ProtocolHandshakeHandler handshakeHandler;
 
     public LunaChannelInitializer(ServiceRegistration<ServerConfiguration> config,
                                   ServiceRegistration<EncryptionFactory> encryptionFactory,
-                                  ServiceRegistration<JsonMapper> jsonMapper,
-                                  ServiceRegistration<VirtualHostManager> virtualHostManager,
-                                  ServiceRegistration<SessionClient> sessionClient) {
+                                  ServiceRegistration<StatusResponseCache> statusResponseCache,
+                                  ServiceRegistration<VirtualHostCache> virtualHostCache,
+                                  ServiceRegistration<SessionClient> sessionClient,
+                                  ServiceRegistration<CryptoExecutor> cryptoExecutor,
+                                  ServiceRegistration<CompressionExecutor> compressionExecutor,
+                                  ServiceRegistration<LoginAdmission> loginAdmission,
+                                  ServiceRegistration<NetworkMetrics> networkMetrics,
+                                  ServiceRegistration<TrafficShaper> trafficShaper) {
         this.config = Objects.requireNonNull(config, "config must not be null");
+        this.compressionExecutor = Objects.requireNonNull(compressionExecutor, "compressionExecutor must not be null");
+        this.networkMetrics = Objects.requireNonNull(networkMetrics, "networkMetrics must not be null");
+        this.trafficShaper = Objects.requireNonNull(trafficShaper, "trafficShaper must not be null");
 
-        legacyPingHandler = new LegacyPingHandler(virtualHostManager);
-        handshakeHandler = new ProtocolHandshakeHandler(encryptionFactory, jsonMapper, virtualHostManager, sessionClient);
+        ServerConfiguration configuration = config.requireInstance();
+        fusedCodec = configuration.isFusedCodec();
+        if (!fusedCodec)
+            warnIgnoredOptions(configuration);
+        // The non-fused pipeline uses the compression and cipher handlers of luna-protocol
+        compressionBackend = fusedCodec ? CompressionBackends.select(configuration.getPacketCompression().getBackend()) : null;
+        cipherEngine = fusedCodec ? CipherEngines.select(configuration.getCipherEngine()) : null;
+        legacyPingHandler = new LegacyPingHandler(virtualHostCache, statusResponseCache);
+        handshakeHandler = new ProtocolHandshakeHandler(encryptionFactory, statusResponseCache, virtualHostCache, sessionClient, cryptoExecutor, loginAdmission);
     }
 
     @Override
     protected void initChannel(SocketChannel ch) throws Exception {
         ServerConfiguration config = this.config.requireInstance();
+        networkMetrics.requireInstance().register(ch);
 
-        ch.pipeline()
-                .addLast(HANDLER_READ_TIMEOUT, new ReadTimeoutHandler(config.getTimeout()))
-                .addLast(LegacyPingHandler.HANDLER_NAME, legacyPingHandler)
-                .addLast(LengthLimitedFrameDecoder.HANDLER_NAME, new LengthLimitedFrameDecoder())
-                .addLast(PacketLengthPrepender.HANDLER_NAME, PacketLengthPrepender.INSTANCE)
-                .addLast(OutboundExceptionHandler.HANDLER_NAME, OutboundExceptionHandler.INSTANCE)
-                .addLast(ProtocolHandshakeHandler.HANDLER_NAME, handshakeHandler);
+        ChannelPipeline pipeline = ch.pipeline()
+                .addLast(TrafficMetricsHandler.HANDLER_NAME_WIRE, TrafficMetricsHandler.WIRE)
+                .addLast(HANDLER_READ_TIMEOUT, new IdleTimeoutHandler(config.getTimeout()))
+                .addLast(LegacyPingHandler.HANDLER_NAME, legacyPingHandler);
+        if (fusedCodec) {
+            pipeline.addLast(PacketCodec.HANDLER_NAME, new PacketCodec(config.getPacketCompression(), compressionBackend, cipherEngine, compressionExecutor.requireInstance()));
+        } else {
+            pipeline.addLast(LengthLimitedFrameDecoder.HANDLER_NAME, new LengthLimitedFrameDecoder())
+                    .addLast(PacketLengthPrepender.HANDLER_NAME, PacketLengthPrepender.INSTANCE)
+                    .addLast(TrafficMetricsHandler.HANDLER_NAME_PACKET, TrafficMetricsHandler.PACKET);
+        }
+        pipeline.addLast(OutboundExceptionHandler.HANDLER_NAME, OutboundExceptionHandler.INSTANCE)
+                .addLast(ProtocolStateHandler.HANDLER_NAME, new ProtocolStateHandler(handshakeHandler));
+        trafficShaper.requireInstance().install(ch);
 
         if (DEBUG) {
             LimitedLoggingHandler loggingHandler = new LimitedLoggingHandler(LogLevel.DEBUG);
@@ -85,4 +128,21 @@ public class LunaChannelInitializer extends ChannelInitializer<SocketChannel> {
                 LOGGER.warn("Logger {} must able to log {} to show channel debug messages", logger.getName(), Level.DEBUG);
         }
     }
+
+    private static void warnIgnoredOptions(ServerConfiguration config) {
+        // These options are implemented by the fused codec only
+        ServerConfiguration.PacketCompression compression = config.getPacketCompression();
+        if (compression.isAdaptive())
+            LOGGER.warn("Adaptive packet compression requires the fused codec and will be ignored");
+        if (compression.getOffloadThreshold() > 0)
+            LOGGER.warn("Offloading packet compression requires the fused codec and will be ignored");
+        if (isConfigured(compression.getBackend()))
+            LOGGER.warn("Compression backend {} requires the fused codec and will be ignored", compression.getBackend());
+        if (isConfigured(config.getCipherEngine()))
+            LOGGER.warn("Cipher engine {} requires the fused codec and will be ignored", config.getCipherEngine());
+    }
+
+    private static boolean isConfigured(String implementation) {
+        return implementation != null && !ImplementationSelector.AUTO.equalsIgnoreCase(implementation);
+    }
 }
@@ -19,23 +19,32 @@ package io.lunamc.plugins.netty.server;
 import io.lunamc.platform.service.ServiceRegistration;
 import io.lunamc.platform.service.Shutdownable;
 import io.lunamc.platform.service.Startable;
-import io.lunamc.common.host.VirtualHostManager;
-import io.lunamc.common.json.JsonMapper;
 import io.lunamc.common.login.encryption.EncryptionFactory;
 import io.lunamc.common.login.session.SessionClient;
 import io.lunamc.common.server.Server;
+import io.lunamc.plugins.netty.compression.CompressionExecutor;
 import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.host.VirtualHostCache;
+import io.lunamc.plugins.netty.login.LoginAdmission;
+import io.lunamc.plugins.netty.metrics.NetworkMetrics;
+import io.lunamc.plugins.netty.shaping.TrafficShaper;
+import io.lunamc.plugins.netty.login.encryption.CryptoExecutor;
 import io.lunamc.plugins.netty.netty.EventLoopGroupHolder;
-import io.lunamc.plugins.netty.utils.NettyUtils;
+import io.lunamc.plugins.netty.netty.Transport;
+import io.lunamc.plugins.netty.status.StatusResponseCache;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.epoll.Epoll;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class NettyServer implements Server, Startable, Shutdownable {
@@ -43,28 +52,47 @@ public class NettyServer implements Server, Startable, Shutdownable {
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyServer.class);
     private static final Marker MARKER_PERFORMANCE = MarkerFactory.getMarker("PERFORMANCE");
     private static final Marker MARKER_SERVER = MarkerFactory.getMarker("SERVER");
+    private static final String OPTION_SO_REUSEPORT = "SO_REUSEPORT";
+    private static final String OPTION_TCP_QUICKACK = "TCP_QUICKACK";
+    private static final String OPTION_TCP_USER_TIMEOUT = "TCP_USER_TIMEOUT";
+    private static final String OPTION_SO_BUSY_POLL = "SO_BUSY_POLL";
 
     private final ServiceRegistration<ServerConfiguration> config;
     private final ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder;
     private final ServiceRegistration<EncryptionFactory> encryptionFactory;
-    private final ServiceRegistration<JsonMapper> jsonMapper;
-    private final ServiceRegistration<VirtualHostManager> virtualHostManager;
+    private final ServiceRegistration<StatusResponseCache> statusResponseCache;
+    private final ServiceRegistration<VirtualHostCache> virtualHostCache;
     private final ServiceRegistration<SessionClient> sessionClient;
-    private Channel channel;
+    private final ServiceRegistration<CryptoExecutor> cryptoExecutor;
+    private final ServiceRegistration<CompressionExecutor> compressionExecutor;
+    private final ServiceRegistration<LoginAdmission> loginAdmission;
+    private final ServiceRegistration<NetworkMetrics> networkMetrics;
+    private final ServiceRegistration<TrafficShaper> trafficShaper;
+    private final List<Channel> channels = new ArrayList<>();
     private boolean started;
 
     public NettyServer(ServiceRegistration<ServerConfiguration> config,
                        ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder,
                        ServiceRegistration<EncryptionFactory> encryptionFactory,
-                       ServiceRegistration<JsonMapper> jsonMapper,
-                       ServiceRegistration<VirtualHostManager> virtualHostManager,
-                       ServiceRegistration<SessionClient> sessionClient) {
+                       ServiceRegistration<StatusResponseCache> statusResponseCache,
+                       ServiceRegistration<VirtualHostCache> virtualHostCache,
+                       ServiceRegistration<SessionClient> sessionClient,
+                       ServiceRegistration<CryptoExecutor> cryptoExecutor,
+                       ServiceRegistration<CompressionExecutor> compressionExecutor,
+                       ServiceRegistration<LoginAdmission> loginAdmission,
+                       ServiceRegistration<NetworkMetrics> networkMetrics,
+                       ServiceRegistration<TrafficShaper> trafficShaper) {
         this.config = Objects.requireNonNull(config, "config must not be null");
         this.eventLoopGroupHolder = Objects.requireNonNull(eventLoopGroupHolder, "eventLoopGroupHolder must not be null");
         this.encryptionFactory = Objects.requireNonNull(encryptionFactory, "encryptionFactory must not be null");
-        this.jsonMapper = Objects.requireNonNull(jsonMapper, "jsonMapper must not be null");
-        this.virtualHostManager = Objects.requireNonNull(virtualHostManager, "virtualHostManager must not be null");
+        this.statusResponseCache = Objects.requireNonNull(statusResponseCache, "statusResponseCache must not be null");
+        this.virtualHostCache = Objects.requireNonNull(virtualHostCache, "virtualHostCache must not be null");
         this.sessionClient = Objects.requireNonNull(sessionClient, "sessionClient must not be null");
+        this.cryptoExecutor = Objects.requireNonNull(cryptoExecutor, "cryptoExecutor must not be null");
+        this.compressionExecutor = Objects.requireNonNull(compressionExecutor, "compressionExecutor must not be null");
+        this.loginAdmission = Objects.requireNonNull(loginAdmission, "loginAdmission must not be null");
+        this.networkMetrics = Objects.requireNonNull(networkMetrics, "networkMetrics must not be null");
+        this.trafficShaper = Objects.requireNonNull(trafficShaper, "trafficShaper must not be null");
     }
 
     @Override
@@ -72,36 +100,42 @@ public class NettyServer implements Server, Startable, Shutdownable {
         if (started)
             throw new IllegalStateException("Already started");
 
-        if (!Epoll.isAvailable())
-            LOGGER.info(MARKER_PERFORMANCE, "Epoll will not be used (cause: {})", NettyUtils.getEpollUnavailabilityReason());
-        else
-            LOGGER.info(MARKER_PERFORMANCE, "Epoll is available and will be used");
-
         LOGGER.info(MARKER_SERVER, "Server is starting...");
         long timer = System.currentTimeMillis();
         ServerConfiguration config = this.config.requireInstance();
         EventLoopGroupHolder eventLoopGroupHolder = this.eventLoopGroupHolder.requireInstance();
+        Transport transport = eventLoopGroupHolder.getTransport();
         try {
-            channel = new ServerBootstrap()
-                    .group(eventLoopGroupHolder.getBossGroup(), eventLoopGroupHolder.getWorkerGroup())
-                    .channel(NettyUtils.getServerSocketChannelClass())
-                    .option(ChannelOption.TCP_NODELAY, true)
-                    .childHandler(new LunaChannelInitializer(
-                            this.config,
-                            encryptionFactory,
-                            jsonMapper,
-                            virtualHostManager,
-                            sessionClient
-                    ))
-                    .bind(config.getPort())
-                    .sync()
-                    .channel();
+            LunaChannelInitializer channelInitializer = new LunaChannelInitializer(
+                    this.config,
+                    encryptionFactory,
+                    statusResponseCache,
+                    virtualHostCache,
+                    sessionClient,
+                    cryptoExecutor,
+                    compressionExecutor,
+                    loginAdmission,
+                    networkMetrics,
+                    trafficShaper
+            );
+            ServerConfiguration.ConnectionThrottle throttle = config.getConnectionThrottle();
+            ConnectionThrottleHandler throttleHandler = throttle.getRate() > 0
+                    ? new ConnectionThrottleHandler(this.config, throttle.getMaxTrackedAddresses())
+                    : null;
+            int acceptors = config.getAcceptors();
+            ChannelOption<Boolean> reusePort = transport.getNativeOption(OPTION_SO_REUSEPORT);
+            if (acceptors > 1 && reusePort != null)
+                bindReusePort(config, transport, eventLoopGroupHolder, throttleHandler, channelInitializer, acceptors, reusePort);
+            else
+                bindSingle(config, transport, eventLoopGroupHolder, throttleHandler, channelInitializer, acceptors);
             started = true;
         } catch (InterruptedException e) {
             LOGGER.warn(MARKER_SERVER, "Server startup interrupted");
         } catch (Throwable e) {
             LOGGER.error(MARKER_SERVER, "A exception was thrown during server startup", e);
         }
+        if (!started)
+            closeChannels();
         timer = System.currentTimeMillis() - timer;
         if (started)
             LOGGER.info(MARKER_SERVER, "Server started (took {} ms)", timer);
@@ -120,8 +154,7 @@ public class NettyServer implements Server, Startable, Shutdownable {
             throw new IllegalStateException("Not started.");
 
         try {
-            if (channel != null)
-                channel.close().syncUninterruptibly();
+            closeChannels();
         } finally {
             started = false;
         }
@@ -131,4 +164,88 @@ public class NettyServer implements Server, Startable, Shutdownable {
     public int getShutdownPriority() {
         return 90;
     }
+
+    private void bindSingle(ServerConfiguration config,
+                            Transport transport,
+                            EventLoopGroupHolder eventLoopGroupHolder,
+                            ConnectionThrottleHandler throttleHandler,
+                            LunaChannelInitializer channelInitializer,
+                            int acceptors) throws InterruptedException {
+        if (acceptors > 1)
+            LOGGER.info(MARKER_PERFORMANCE, "{} acceptors configured but transport {} does not support SO_REUSEPORT. Falling back to a single acceptor.", acceptors, transport.getName());
+
+        channels.add(createBootstrap(config, transport, eventLoopGroupHolder.getBossGroup(), eventLoopGroupHolder.getWorkerGroup(), throttleHandler, channelInitializer)
+                .bind(config.getPort())
+                .sync()
+                .channel());
+    }
+
+    private void bindReusePort(ServerConfiguration config,
+                               Transport transport,
+                               EventLoopGroupHolder eventLoopGroupHolder,
+                               ConnectionThrottleHandler throttleHandler,
+                               LunaChannelInitializer channelInitializer,
+                               int acceptors,
+                               ChannelOption<Boolean> reusePort) throws InterruptedException {
+        List<EventLoop> bossLoops = new ArrayList<>();
+        for (EventExecutor executor : eventLoopGroupHolder.getBossGroup())
+            bossLoops.add((EventLoop) executor);
+        if (bossLoops.size() < acceptors)
+            LOGGER.warn(MARKER_PERFORMANCE, "{} acceptors configured but only {} boss threads available. Some boss threads will own multiple acceptors.", acceptors, bossLoops.size());
+
+        for (int i = 0; i < acceptors; i++) {
+            channels.add(createBootstrap(config, transport, bossLoops.get(i % bossLoops.size()), eventLoopGroupHolder.getWorkerGroup(), throttleHandler, channelInitializer)
+                    .option(reusePort, true)
+                    .bind(config.getPort())
+                    .sync()
+                    .channel());
+        }
+        LOGGER.info(MARKER_PERFORMANCE, "Bound {} acceptors to port {} using SO_REUSEPORT", acceptors, config.getPort());
+    }
+
+    private static ServerBootstrap createBootstrap(ServerConfiguration config,
+                                                  Transport transport,
+                                                  EventLoopGroup bossGroup,
+                                                  EventLoopGroup workerGroup,
+                                                  ConnectionThrottleHandler throttleHandler,
+                                                  LunaChannelInitializer channelInitializer) {
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(transport.getServerSocketChannelClass())
+                .childHandler(channelInitializer);
+        if (throttleHandler != null)
+            bootstrap.handler(throttleHandler);
+        applyChildOptions(bootstrap, transport, config.getChildOptions());
+        return bootstrap;
+    }
+
+    private static void applyChildOptions(ServerBootstrap bootstrap, Transport transport, ServerConfiguration.ChildOptions options) {
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, options.isTcpNoDelay())
+                .childOption(ChannelOption.SO_KEEPALIVE, options.isKeepAlive());
+        if (options.getSendBufferSize() > 0)
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, options.getSendBufferSize());
+        if (options.getReceiveBufferSize() > 0)
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, options.getReceiveBufferSize());
+
+        if (options.getTcpQuickAck() != null)
+            applyNativeChildOption(bootstrap, transport, OPTION_TCP_QUICKACK, options.getTcpQuickAck());
+        if (options.getTcpUserTimeout() > 0)
+            applyNativeChildOption(bootstrap, transport, OPTION_TCP_USER_TIMEOUT, options.getTcpUserTimeout());
+        if (options.getBusyPoll() > 0)
+            applyNativeChildOption(bootstrap, transport, OPTION_SO_BUSY_POLL, options.getBusyPoll());
+    }
+
+    private static <T> void applyNativeChildOption(ServerBootstrap bootstrap, Transport transport, String name, T value) {
+        ChannelOption<T> option = transport.getNativeOption(name);
+        if (option != null)
+            bootstrap.childOption(option, value);
+        else
+            LOGGER.info(MARKER_PERFORMANCE, "Child option {} is not supported by transport {} and will be ignored", name, transport.getName());
+    }
+
+    private void closeChannels() {
+        for (Channel channel : channels)
+            channel.close().syncUninterruptibly();
+        channels.clear();
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.shaping;
+
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.netty.EventLoopGroupHolder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.traffic.GlobalChannelTrafficShapingHandler;
+import io.netty.handler.traffic.GlobalTrafficShapingHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class DefaultTrafficShaper implements TrafficShaper {
+
+    public static final String HANDLER_NAME = "traffic-shaping";
+    public static final String HANDLER_NAME_ADDRESS = "address-traffic-shaping";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTrafficShaper.class);
+    private static final Marker MARKER_PERFORMANCE = MarkerFactory.getMarker("PERFORMANCE");
+
+    private final ServiceRegistration<ServerConfiguration> config;
+    private final ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder;
+    private final Map<InetAddress, AddressShaper> addressShapers = new ConcurrentHashMap<>();
+    private volatile GlobalChannelTrafficShapingHandler globalHandler;
+    private volatile boolean enabled;
+
+    public DefaultTrafficShaper(ServiceRegistration<ServerConfiguration> config,
+                                ServiceRegistration<EventLoopGroupHolder> eventLoopGroupHolder) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.eventLoopGroupHolder = Objects.requireNonNull(eventLoopGroupHolder, "eventLoopGroupHolder must not be null");
+    }
+
+    @Override
+    public synchronized void start() {
+        ServerConfiguration.TrafficShaping config = this.config.requireInstance().getTrafficShaping();
+        if (!config.isEnabled())
+            return;
+
+        globalHandler = createGlobalHandler(config);
+        enabled = true;
+        logLimits("enabled", config);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        enabled = false;
+        if (globalHandler != null) {
+            globalHandler.release();
+            globalHandler = null;
+        }
+        for (AddressShaper addressShaper : addressShapers.values())
+            addressShaper.handler.release();
+        addressShapers.clear();
+    }
+
+    @Override
+    public void install(Channel channel) {
+        GlobalChannelTrafficShapingHandler globalHandler = this.globalHandler;
+        if (!enabled || globalHandler == null)
+            return;
+
+        SocketAddress remoteAddress = channel.remoteAddress();
+        // Every address handler schedules its own traffic counter, so they are only created if they limit anything
+        if (remoteAddress instanceof InetSocketAddress && hasAddressLimits(this.config.requireInstance().getTrafficShaping())) {
+            InetAddress address = ((InetSocketAddress) remoteAddress).getAddress();
+            AddressShaper addressShaper = addressShapers.compute(address, (key, existing) -> {
+                if (existing == null)
+                    existing = new AddressShaper(createAddressHandler());
+                existing.channels++;
+                return existing;
+            });
+            channel.pipeline().addFirst(HANDLER_NAME_ADDRESS, addressShaper.handler);
+            channel.closeFuture().addListener((ChannelFutureListener) future -> addressShapers.computeIfPresent(address, (key, existing) -> {
+                if (--existing.channels > 0)
+                    return existing;
+                existing.handler.release();
+                return null;
+            }));
+        }
+        channel.pipeline().addFirst(HANDLER_NAME, globalHandler);
+    }
+
+    @Override
+    public synchronized void reconfigure() {
+        ServerConfiguration.TrafficShaping config = this.config.requireInstance().getTrafficShaping();
+        if (!config.isEnabled()) {
+            if (enabled) {
+                // Existing connections keep their handlers, but they don't limit the traffic anymore
+                enabled = false;
+                globalHandler.configureGlobal(0, 0);
+                globalHandler.configureChannel(0, 0);
+                for (AddressShaper addressShaper : addressShapers.values())
+                    addressShaper.handler.configure(0, 0);
+                LOGGER.info(MARKER_PERFORMANCE, "Traffic shaping disabled");
+            }
+            return;
+        }
+
+        if (globalHandler == null) {
+            globalHandler = createGlobalHandler(config);
+        } else {
+            globalHandler.configureGlobal(config.getGlobalWriteLimit(), config.getGlobalReadLimit());
+            globalHandler.configureChannel(config.getChannelWriteLimit(), config.getChannelReadLimit());
+            globalHandler.configure(config.getCheckInterval());
+            globalHandler.setMaxTimeWait(config.getMaxTime());
+        }
+        for (AddressShaper addressShaper : addressShapers.values()) {
+            addressShaper.handler.configure(config.getAddressWriteLimit(), config.getAddressReadLimit(), config.getCheckInterval());
+            addressShaper.handler.setMaxTimeWait(config.getMaxTime());
+        }
+        enabled = true;
+        logLimits("reconfigured", config);
+    }
+
+    private GlobalChannelTrafficShapingHandler createGlobalHandler(ServerConfiguration.TrafficShaping config) {
+        return new GlobalChannelTrafficShapingHandler(
+                executor(),
+                config.getGlobalWriteLimit(),
+                config.getGlobalReadLimit(),
+                config.getChannelWriteLimit(),
+                config.getChannelReadLimit(),
+                config.getCheckInterval(),
+                config.getMaxTime()
+        );
+    }
+
+    private GlobalTrafficShapingHandler createAddressHandler() {
+        ServerConfiguration.TrafficShaping config = this.config.requireInstance().getTrafficShaping();
+        return new GlobalTrafficShapingHandler(
+                executor(),
+                config.getAddressWriteLimit(),
+                config.getAddressReadLimit(),
+                config.getCheckInterval(),
+                config.getMaxTime()
+        );
+    }
+
+    private static boolean hasAddressLimits(ServerConfiguration.TrafficShaping config) {
+        return config.getAddressReadLimit() > 0 || config.getAddressWriteLimit() > 0;
+    }
+
+    private static void logLimits(String action, ServerConfiguration.TrafficShaping config) {
+        LOGGER.info(MARKER_PERFORMANCE, "Traffic shaping {}: global={}/{}, channel={}/{}, address={}/{} bytes/s (read/write, 0 = unlimited)",
+                action,
+                config.getGlobalReadLimit(),
+                config.getGlobalWriteLimit(),
+                config.getChannelReadLimit(),
+                config.getChannelWriteLimit(),
+                config.getAddressReadLimit(),
+                config.getAddressWriteLimit());
+    }
+
+    private ScheduledExecutorService executor() {
+        return eventLoopGroupHolder.requireInstance().getWorkerGroup();
+    }
+
+    private static class AddressShaper {
+
+        private final GlobalTrafficShapingHandler handler;
+        // Guarded by the map's compute methods
+        private int channels;
+
+        private AddressShaper(GlobalTrafficShapingHandler handler) {
+            this.handler = handler;
+        }
+    }
+}
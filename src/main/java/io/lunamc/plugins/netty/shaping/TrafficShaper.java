@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.shaping;
+
+import io.lunamc.platform.service.Shutdownable;
+import io.lunamc.platform.service.Startable;
+import io.netty.channel.Channel;
+
+/**
+ * Limits the bandwidth of all connections together, of every single connection and of all connections of the same
+ * remote address. The limits are read from {@link io.lunamc.plugins.netty.config.ServerConfiguration.TrafficShaping}.
+ */
+public interface TrafficShaper extends Startable, Shutdownable {
+
+    /**
+     * Adds the traffic shaping handlers to the pipeline of a new connection if traffic shaping is enabled.
+     *
+     * @param channel The channel of the connection
+     */
+    void install(Channel channel);
+
+    /**
+     * Applies the current limits of the configuration to all existing connections. If traffic shaping was disabled
+     * before, it is enabled for the connections established afterwards.
+     */
+    void reconfigure();
+
+    @Override
+    default int getStartPriority() {
+        // Requires the event loop groups
+        return 50;
+    }
+
+    @Override
+    default int getShutdownPriority() {
+        return 50;
+    }
+}
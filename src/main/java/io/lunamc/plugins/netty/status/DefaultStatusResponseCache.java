@@ -0,0 +1,279 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.status;
+
+import io.lunamc.platform.service.ServiceRegistration;
+import io.lunamc.common.host.VirtualHost;
+import io.lunamc.common.json.JsonMapper;
+import io.lunamc.common.network.Connection;
+import io.lunamc.common.network.DecidedConnection;
+import io.lunamc.common.status.BetaStatusResponse;
+import io.lunamc.common.status.LegacyStatusResponse;
+import io.lunamc.common.status.StatusResponse;
+import io.lunamc.plugins.netty.config.ServerConfiguration;
+import io.lunamc.plugins.netty.protocol.PacketTables;
+import io.lunamc.plugins.netty.protocol.PacketType;
+import io.lunamc.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import io.netty.util.IllegalReferenceCountException;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public class DefaultStatusResponseCache implements StatusResponseCache {
+
+    // Protocol versions are chosen by the client so the number of entries must be bounded
+    private static final int MAX_ENTRIES = 1024;
+    private static final int NO_PROTOCOL_VERSION = -1;
+    private static final String LEGACY_DELIMITER = "\b00\b00";
+
+    private final ServiceRegistration<ServerConfiguration> config;
+    private final ServiceRegistration<JsonMapper> jsonMapper;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public DefaultStatusResponseCache(ServiceRegistration<ServerConfiguration> config, ServiceRegistration<JsonMapper> jsonMapper) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.jsonMapper = Objects.requireNonNull(jsonMapper, "jsonMapper must not be null");
+    }
+
+    @Override
+    public ByteBuf getStatusResponse(DecidedConnection connection, ByteBufAllocator alloc) {
+        return get(
+                new Key(connection.getVirtualHost(), Type.STATUS, connection.getProtocolVersion()),
+                output -> encodeStatusResponse(connection, output),
+                alloc
+        );
+    }
+
+    @Override
+    public ByteBuf getBetaStatusResponse(Connection connection, VirtualHost virtualHost, ByteBufAllocator alloc) {
+        return get(
+                new Key(virtualHost, Type.BETA, NO_PROTOCOL_VERSION),
+                output -> encodeBetaStatusResponse(connection, virtualHost, output),
+                alloc
+        );
+    }
+
+    @Override
+    public ByteBuf getLegacy14StatusResponse(Connection connection, VirtualHost virtualHost, ByteBufAllocator alloc) {
+        return get(
+                new Key(virtualHost, Type.LEGACY_14, NO_PROTOCOL_VERSION),
+                output -> encodeLegacyStatusResponse(virtualHost.getStatusProvider(connection).createLegacy14StatusResponse(connection), output),
+                alloc
+        );
+    }
+
+    @Override
+    public ByteBuf getLegacy16StatusResponse(DecidedConnection connection, ByteBufAllocator alloc) {
+        VirtualHost virtualHost = connection.getVirtualHost();
+        return get(
+                new Key(virtualHost, Type.LEGACY_16, connection.getProtocolVersion()),
+                output -> encodeLegacyStatusResponse(virtualHost.getStatusProvider(connection).createLegacy16StatusResponse(connection), output),
+                alloc
+        );
+    }
+
+    @Override
+    public void invalidate(VirtualHost virtualHost) {
+        removeIf(mapping -> mapping.getKey().virtualHost.equals(virtualHost));
+    }
+
+    @Override
+    public void invalidateAll() {
+        removeIf(mapping -> true);
+    }
+
+    private ByteBuf get(Key key, Consumer<ByteBuf> encoder, ByteBufAllocator alloc) {
+        long ttl = TimeUnit.MILLISECONDS.toNanos(config.requireInstance().getStatusCacheTtl());
+        if (ttl <= 0)
+            return encode(encoder, alloc);
+
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        Entry rebuilding = null;
+        if (entry != null) {
+            // Only one caller rebuilds an expired entry, the others serve the stale response meanwhile
+            if (entry.isExpired(now) && entry.claimRebuild()) {
+                rebuilding = entry;
+            } else {
+                ByteBuf cached = entry.retainedDuplicate();
+                if (cached != null)
+                    return cached;
+            }
+        } else if (entries.size() >= MAX_ENTRIES) {
+            purgeExpired(now);
+            if (entries.size() >= MAX_ENTRIES)
+                return encode(encoder, alloc);
+        }
+
+        ByteBuf output;
+        try {
+            output = encode(encoder, alloc);
+        } catch (Throwable throwable) {
+            if (rebuilding != null)
+                rebuilding.cancelRebuild();
+            throw throwable;
+        }
+        // The map owns the cached copy, every caller receives a retained duplicate of it
+        int length = output.readableBytes();
+        Entry created = new Entry(Unpooled.directBuffer(length, length).writeBytes(output, output.readerIndex(), length), now + ttl);
+        boolean inserted = rebuilding != null ? entries.replace(key, rebuilding, created) : entries.putIfAbsent(key, created) == null;
+        if (!inserted)
+            created.release();
+        else if (rebuilding != null)
+            rebuilding.release();
+        return output;
+    }
+
+    private static ByteBuf encode(Consumer<ByteBuf> encoder, ByteBufAllocator alloc) {
+        ByteBuf output = alloc.buffer();
+        try {
+            encoder.accept(output);
+        } catch (Throwable throwable) {
+            output.release();
+            throw throwable;
+        }
+        return output;
+    }
+
+    private void encodeStatusResponse(DecidedConnection connection, ByteBuf output) {
+        StatusResponse response = connection.getVirtualHost().getStatusProvider(connection).createStatusResponse(connection);
+        String serialized = jsonMapper.requireInstance().serialize(response);
+
+        // Write packet id for status response
+        ProtocolUtils.writeVarInt(output, PacketTables.get(connection.getProtocolVersion()).getPacketId(PacketType.STATUS_RESPONSE));
+        // Write json status
+        ProtocolUtils.writeString(output, serialized);
+    }
+
+    private void purgeExpired(long now) {
+        removeIf(mapping -> mapping.getValue().isExpired(now));
+    }
+
+    private void removeIf(Predicate<Map.Entry<Key, Entry>> predicate) {
+        for (Map.Entry<Key, Entry> mapping : entries.entrySet()) {
+            if (predicate.test(mapping) && entries.remove(mapping.getKey(), mapping.getValue()))
+                mapping.getValue().release();
+        }
+    }
+
+    private static void encodeBetaStatusResponse(Connection connection, VirtualHost virtualHost, ByteBuf output) {
+        BetaStatusResponse response = virtualHost.getStatusProvider(connection).createBetaStatusResponse(connection);
+        output.writeByte(0xff);
+        String dataString = response.getMessageOfTheDay() + '§' +
+                response.getCurrentPlayerCount() + '§' +
+                response.getMaxPlayerCount();
+        writeLegacyString(output, dataString);
+    }
+
+    private static void encodeLegacyStatusResponse(LegacyStatusResponse response, ByteBuf output) {
+        output.writeByte(0xff);
+        String dataString = "§1\0" + response.getProtocolVersion() + LEGACY_DELIMITER +
+                response.getServerVersion() + LEGACY_DELIMITER +
+                response.getMessageOfTheDay() + LEGACY_DELIMITER +
+                response.getCurrentPlayerCount() + LEGACY_DELIMITER +
+                response.getMaxPlayerCount();
+        writeLegacyString(output, dataString);
+    }
+
+    private static void writeLegacyString(ByteBuf buffer, String str) {
+        byte[] data = str.getBytes(CharsetUtil.UTF_16BE);
+        buffer.writeShort(data.length);
+        buffer.writeBytes(data);
+    }
+
+    private enum Type {
+        STATUS,
+        BETA,
+        LEGACY_14,
+        LEGACY_16
+    }
+
+    private static class Key {
+
+        private final VirtualHost virtualHost;
+        private final Type type;
+        private final int protocolVersion;
+
+        private Key(VirtualHost virtualHost, Type type, int protocolVersion) {
+            this.virtualHost = Objects.requireNonNull(virtualHost, "virtualHost must not be null");
+            this.type = type;
+            this.protocolVersion = protocolVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            Key key = (Key) o;
+            return protocolVersion == key.protocolVersion && type == key.type && virtualHost.equals(key.virtualHost);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * virtualHost.hashCode() + type.hashCode()) + protocolVersion;
+        }
+    }
+
+    private static class Entry {
+
+        private final ByteBuf buffer;
+        private final long expiresAt;
+        private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+        private Entry(ByteBuf buffer, long expiresAt) {
+            this.buffer = buffer;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        private boolean claimRebuild() {
+            return rebuilding.compareAndSet(false, true);
+        }
+
+        private void cancelRebuild() {
+            rebuilding.set(false);
+        }
+
+        private ByteBuf retainedDuplicate() {
+            try {
+                return buffer.retainedDuplicate();
+            } catch (IllegalReferenceCountException e) {
+                // The entry was replaced and released concurrently
+                return null;
+            }
+        }
+
+        private void release() {
+            buffer.release();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.status;
+
+import io.lunamc.common.host.VirtualHost;
+import io.lunamc.common.network.Connection;
+import io.lunamc.common.network.DecidedConnection;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Caches encoded status responses (including the responses to legacy pings) per {@link VirtualHost} so server list
+ * pings don't require to create and serialize a new response every time. Plugins which change the status of a
+ * virtual host (like the message of the day) may invalidate the cache to publish the change immediately.
+ */
+public interface StatusResponseCache {
+
+    /**
+     * Returns the encoded status response packet (packet id and json payload) for the connection. The returned buffer
+     * is owned by the caller.
+     *
+     * @param connection The connection requesting the status
+     * @param alloc The allocator used if the response can not be served from the cache
+     * @return The encoded packet
+     */
+    ByteBuf getStatusResponse(DecidedConnection connection, ByteBufAllocator alloc);
+
+    /**
+     * Returns the encoded kick packet ({@code 0xff}) answering a legacy ping of beta 1.8 to 1.3 clients. The returned
+     * buffer is owned by the caller.
+     *
+     * @param connection The connection requesting the status
+     * @param virtualHost The virtual host answering the ping
+     * @param alloc The allocator used if the response can not be served from the cache
+     * @return The encoded packet
+     */
+    ByteBuf getBetaStatusResponse(Connection connection, VirtualHost virtualHost, ByteBufAllocator alloc);
+
+    /**
+     * Returns the encoded kick packet ({@code 0xff}) answering a legacy ping of 1.4 and 1.5 clients. The returned
+     * buffer is owned by the caller.
+     *
+     * @param connection The connection requesting the status
+     * @param virtualHost The virtual host answering the ping
+     * @param alloc The allocator used if the response can not be served from the cache
+     * @return The encoded packet
+     */
+    ByteBuf getLegacy14StatusResponse(Connection connection, VirtualHost virtualHost, ByteBufAllocator alloc);
+
+    /**
+     * Returns the encoded kick packet ({@code 0xff}) answering a legacy ping of 1.6 clients. The returned buffer is
+     * owned by the caller.
+     *
+     * @param connection The connection requesting the status
+     * @param alloc The allocator used if the response can not be served from the cache
+     * @return The encoded packet
+     */
+    ByteBuf getLegacy16StatusResponse(DecidedConnection connection, ByteBufAllocator alloc);
+
+    void invalidate(VirtualHost virtualHost);
+
+    void invalidateAll();
+}
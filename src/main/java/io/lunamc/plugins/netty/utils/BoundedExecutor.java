@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.utils;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size pool of daemon threads with a bounded queue. Tasks which can't be queued are rejected instead of being
+ * run by the caller, so an event loop submitting work never blocks.
+ */
+public class BoundedExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedExecutor.class);
+    private static final Marker MARKER_PERFORMANCE = MarkerFactory.getMarker("PERFORMANCE");
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    private final String poolName;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates and starts the executor.
+     *
+     * @param threads The number of threads
+     * @param queueSize The maximum number of queued tasks
+     * @param poolName The name of the pool which is used to name its threads
+     */
+    public BoundedExecutor(int threads, int queueSize, String poolName) {
+        this.poolName = Objects.requireNonNull(poolName, "poolName must not be null");
+        executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new DefaultThreadFactory(poolName, true),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        LOGGER.info(MARKER_PERFORMANCE, "Executor {} started: threads={}, queueSize={}", poolName, threads, queueSize);
+    }
+
+    /**
+     * Submits a task. The returned future will be completed exceptionally with a {@link RejectedExecutionException}
+     * if the executor is saturated or shut down.
+     *
+     * @param task The task to execute
+     * @param <T> The type of the result
+     * @return A future completed with the result of the task
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Shuts the executor down. Queued tasks are given {@value #SHUTDOWN_TIMEOUT} seconds to complete before the
+     * threads are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Executor {} did not terminate in time", poolName);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ignore) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns a future which is completed exceptionally because the executor is not running.
+     *
+     * @param poolName The name of the pool
+     * @param <T> The type of the result
+     * @return A failed future
+     */
+    public static <T> CompletableFuture<T> notRunning(String poolName) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new RejectedExecutionException("Executor " + poolName + " is not running"));
+        return future;
+    }
+}
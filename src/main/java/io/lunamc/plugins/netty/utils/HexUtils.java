@@ -16,15 +16,60 @@
 
 package io.lunamc.plugins.netty.utils;
 
-import java.math.BigInteger;
-
 public class HexUtils {
 
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
     private HexUtils() {
         throw new UnsupportedOperationException(getClass().getSimpleName() + " is a utility class and should not be constructed");
     }
 
+    /**
+     * Encodes the bytes as a signed hexadecimal number in two's complement representation without leading zeros. The
+     * result equals {@code new BigInteger(bytes).toString(16)} but does not allocate intermediate objects.
+     *
+     * @param bytes The bytes in big-endian order
+     * @return The hexadecimal representation
+     */
     public static String toHexTwosComplement(byte[] bytes) {
-        return new BigInteger(bytes).toString(16);
+        if (bytes.length == 0)
+            return "0";
+
+        boolean negative = bytes[0] < 0;
+        if (negative) {
+            // Encode the magnitude
+            bytes = bytes.clone();
+            negate(bytes);
+        }
+
+        char[] chars = new char[bytes.length * 2 + 1];
+        int length = 0;
+        if (negative)
+            chars[length++] = '-';
+        boolean leading = true;
+        for (byte b : bytes) {
+            int high = (b >> 4) & 0x0f;
+            int low = b & 0x0f;
+            if (!leading || high != 0) {
+                chars[length++] = DIGITS[high];
+                leading = false;
+            }
+            if (!leading || low != 0) {
+                chars[length++] = DIGITS[low];
+                leading = false;
+            }
+        }
+        if (leading)
+            return "0";
+        return new String(chars, 0, length);
+    }
+
+    private static void negate(byte[] bytes) {
+        int carry = 1;
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            int value = (~bytes[i] & 0xff) + carry;
+            bytes[i] = (byte) value;
+            carry = value >>> 8;
+        }
     }
 }
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Chooses one of several implementations by name and caches the decision. If the requested implementation is unknown
+ * or not available, the first available candidate is used and the fallback if none of them is available.
+ *
+ * @param <T> The type of the implementations
+ */
+public class ImplementationSelector<T extends SelectableImplementation> {
+
+    /**
+     * Name of the automatic selection.
+     */
+    public static final String AUTO = "auto";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImplementationSelector.class);
+    private static final Marker MARKER_PERFORMANCE = MarkerFactory.getMarker("PERFORMANCE");
+
+    private final String kind;
+    private final List<T> candidates;
+    private final T fallback;
+    private volatile T selected;
+
+    /**
+     * Creates a new selector.
+     *
+     * @param kind The kind of the implementations used for logging, like {@code transport}
+     * @param candidates The implementations in the order of the automatic selection
+     * @param fallback The implementation which is used if no candidate is available. It must always be available.
+     */
+    public ImplementationSelector(String kind, List<T> candidates, T fallback) {
+        this.kind = Objects.requireNonNull(kind, "kind must not be null");
+        this.candidates = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(candidates, "candidates must not be null")));
+        this.fallback = Objects.requireNonNull(fallback, "fallback must not be null");
+    }
+
+    /**
+     * Selects the implementation with the given name (or {@link #AUTO}) and caches the decision. Subsequent calls to
+     * {@link #get()} will return the selected implementation. If the requested implementation is not available the
+     * automatic selection will be used.
+     *
+     * @param name The name of the requested implementation
+     * @return The selected implementation
+     */
+    public T select(String name) {
+        T implementation = null;
+        if (name != null && !AUTO.equalsIgnoreCase(name)) {
+            implementation = find(name);
+            if (implementation == null) {
+                LOGGER.warn(MARKER_PERFORMANCE, "Unknown {} {}. Falling back to automatic selection.", kind, name);
+            } else if (!implementation.isAvailable()) {
+                LOGGER.warn(MARKER_PERFORMANCE, "The {} {} is not available (cause: {}). Falling back to automatic selection.",
+                        kind, name, describeUnavailabilityCause(implementation));
+                implementation = null;
+            }
+        }
+        if (implementation == null)
+            implementation = selectAutomatically();
+        selected = implementation;
+        LOGGER.info(MARKER_PERFORMANCE, "Using {} {}", kind, implementation.getName());
+        return implementation;
+    }
+
+    /**
+     * Returns the selected implementation. If no implementation was selected yet it will be selected automatically.
+     *
+     * @return The selected implementation
+     */
+    public T get() {
+        T implementation = selected;
+        if (implementation == null) {
+            synchronized (this) {
+                implementation = selected;
+                if (implementation == null)
+                    selected = implementation = selectAutomatically();
+            }
+        }
+        return implementation;
+    }
+
+    /**
+     * Returns the candidate or fallback with the given name regardless of its availability.
+     *
+     * @param name The name of the implementation
+     * @return The implementation or {@code null} if there is none with this name
+     */
+    public T find(String name) {
+        for (T candidate : candidates) {
+            if (candidate.getName().equalsIgnoreCase(name))
+                return candidate;
+        }
+        if (fallback.getName().equalsIgnoreCase(name))
+            return fallback;
+        return null;
+    }
+
+    private T selectAutomatically() {
+        for (T candidate : candidates) {
+            if (candidate.isAvailable())
+                return candidate;
+            LOGGER.info(MARKER_PERFORMANCE, "The {} {} will not be used (cause: {})", kind, candidate.getName(), describeUnavailabilityCause(candidate));
+        }
+        return fallback;
+    }
+
+    public static String describeUnavailabilityCause(SelectableImplementation implementation) {
+        Throwable cause = implementation.getUnavailabilityCause();
+        if (cause == null)
+            return null;
+        String message = getFirstMessage(cause);
+        if (message == null)
+            message = cause.getClass().getName();
+        return message;
+    }
+
+    /**
+     * Loads the implementations registered for the {@link ServiceLoader}. Failures are logged and result in an empty
+     * list.
+     *
+     * @param type The type of the implementations
+     * @param kind The kind of the implementations used for logging
+     * @param <T> The type of the implementations
+     * @return The loaded implementations
+     */
+    public static <T extends SelectableImplementation> List<T> loadProvided(Class<T> type, String kind) {
+        List<T> implementations = new ArrayList<>();
+        try {
+            for (T implementation : ServiceLoader.load(type, type.getClassLoader()))
+                implementations.add(implementation);
+        } catch (ServiceConfigurationError e) {
+            LOGGER.warn(MARKER_PERFORMANCE, "Could not load {} implementations", kind, e);
+        }
+        return implementations;
+    }
+
+    private static String getFirstMessage(Throwable throwable) {
+        if (throwable == null)
+            return null;
+        String message = throwable.getMessage();
+        if (message != null)
+            return message;
+        return getFirstMessage(throwable.getCause());
+    }
+}
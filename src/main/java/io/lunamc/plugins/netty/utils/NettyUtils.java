@@ -16,25 +16,21 @@
 
 package io.lunamc.plugins.netty.utils;
 
+import io.lunamc.plugins.netty.netty.EpollTransport;
+import io.lunamc.plugins.netty.netty.Transports;
 import io.lunamc.protocol.ChannelHandlerContextUtils;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
 
 public class NettyUtils {
 
@@ -70,37 +66,26 @@ public class NettyUtils {
     }
 
     public static String getEpollUnavailabilityReason() {
-        Throwable cause = Epoll.unavailabilityCause();
-        if (cause == null)
-            return null;
-        String message = getFirstMessage(cause);
-        if (message == null)
-            message = cause.getClass().getName();
-        return message;
+        return ImplementationSelector.describeUnavailabilityCause(EpollTransport.INSTANCE);
     }
 
     public static EventLoopGroup createEventLoopGroup() {
-        return Epoll.isAvailable() ? new EpollEventLoopGroup() : new NioEventLoopGroup();
+        return createEventLoopGroup(0);
     }
 
     public static EventLoopGroup createEventLoopGroup(int nThreads) {
-        return Epoll.isAvailable() ? new EpollEventLoopGroup(nThreads) : new NioEventLoopGroup(nThreads);
+        return createEventLoopGroup(nThreads, null);
     }
 
-    public static Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
-        return Epoll.isAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    public static EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return Transports.get().createEventLoopGroup(nThreads, threadFactory);
     }
 
-    public static Class<? extends SocketChannel> getSocketChannelClass() {
-        return Epoll.isAvailable() ? EpollSocketChannel.class : NioSocketChannel.class;
+    public static Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+        return Transports.get().getServerSocketChannelClass();
     }
 
-    private static String getFirstMessage(Throwable throwable) {
-        if (throwable == null)
-            return null;
-        String message = throwable.getMessage();
-        if (message != null)
-            return message;
-        return getFirstMessage(throwable.getCause());
+    public static Class<? extends SocketChannel> getSocketChannelClass() {
+        return Transports.get().getSocketChannelClass();
     }
 }
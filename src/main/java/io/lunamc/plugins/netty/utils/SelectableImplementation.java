@@ -0,0 +1,35 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.utils;
+
+/**
+ * An implementation which may be chosen by an {@link ImplementationSelector}, like a transport or a compression
+ * backend.
+ */
+public interface SelectableImplementation {
+
+    String getName();
+
+    boolean isAvailable();
+
+    /**
+     * Returns the cause why this implementation is not available.
+     *
+     * @return The cause or {@code null} if the implementation is available or the cause is unknown
+     */
+    Throwable getUnavailabilityCause();
+}
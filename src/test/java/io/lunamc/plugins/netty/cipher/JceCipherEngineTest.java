@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.cipher;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Random;
+
+public class JceCipherEngineTest {
+
+    private static final SecretKey SECRET = new SecretKeySpec(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 }, "AES");
+
+    @Test
+    public void testBuffers() {
+        byte[] content = new byte[1000];
+        new Random(0).nextBytes(content);
+
+        ByteBuf heap = Unpooled.wrappedBuffer(content.clone());
+        ByteBuf direct = Unpooled.directBuffer(content.length).writeBytes(content);
+        ByteBuf composite = Unpooled.wrappedBuffer(
+                Unpooled.directBuffer(400).writeBytes(content, 0, 400),
+                Unpooled.directBuffer(600).writeBytes(content, 400, 600)
+        );
+        try {
+            assertEncrypted(heap, content);
+            assertEncrypted(direct, content);
+            assertEncrypted(composite, content);
+        } finally {
+            heap.release();
+            direct.release();
+            composite.release();
+        }
+    }
+
+    @Test
+    public void testSelectUnknown() {
+        Assert.assertSame(JceCipherEngine.INSTANCE, CipherEngines.select("unknown"));
+        Assert.assertSame(JceCipherEngine.INSTANCE, CipherEngines.get());
+        Assert.assertSame(JceCipherEngine.INSTANCE, CipherEngines.find(JceCipherEngine.NAME));
+    }
+
+    private static void assertEncrypted(ByteBuf buffer, byte[] content) {
+        PacketCipher encrypt = JceCipherEngine.INSTANCE.createCipher(SECRET, true);
+        PacketCipher decrypt = JceCipherEngine.INSTANCE.createCipher(SECRET, false);
+        // Process in two parts as the state carries over
+        encrypt.process(buffer, 0, 300);
+        encrypt.process(buffer, 300, buffer.readableBytes() - 300);
+        Assert.assertNotEquals(Unpooled.wrappedBuffer(content), buffer);
+        decrypt.process(buffer, 0, buffer.readableBytes());
+        Assert.assertEquals(Unpooled.wrappedBuffer(content), buffer);
+    }
+}
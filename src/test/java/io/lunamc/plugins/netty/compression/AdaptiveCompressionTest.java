@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.lunamc.plugins.netty.config.DefaultServerConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.zip.Deflater;
+
+public class AdaptiveCompressionTest {
+
+    @Test
+    public void testThreshold() {
+        AdaptiveCompression compression = new AdaptiveCompression(new DefaultServerConfiguration().getPacketCompression(), 256, 6);
+        Assert.assertFalse(compression.record(1000, 950));
+        Assert.assertEquals(512, compression.getThreshold());
+        Assert.assertFalse(compression.record(100000, 99000));
+        Assert.assertEquals(512, compression.getThreshold());
+        Assert.assertTrue(compression.record(1000, 500));
+        Assert.assertEquals(256, compression.getThreshold());
+        Assert.assertTrue(compression.record(1000, 500));
+        Assert.assertEquals(256, compression.getThreshold());
+    }
+
+    @Test
+    public void testLevel() {
+        AdaptiveCompression compression = new AdaptiveCompression(new DefaultServerConfiguration().getPacketCompression(), 256, 6);
+        Assert.assertEquals(6, compression.getLevel(0));
+        Assert.assertEquals(Deflater.BEST_SPEED, compression.getLevel(256));
+    }
+}
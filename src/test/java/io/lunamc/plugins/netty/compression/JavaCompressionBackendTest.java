@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+public class JavaCompressionBackendTest {
+
+    @Test
+    public void testRoundTrip() throws DataFormatException {
+        byte[] data = new byte[64 * 1024];
+        Random random = new Random(42);
+        // Compressible but not trivial
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) random.nextInt(16);
+
+        PacketCompressor compressor = JavaCompressionBackend.INSTANCE.createCompressor();
+        PacketDecompressor decompressor = JavaCompressionBackend.INSTANCE.createDecompressor();
+        try {
+            for (boolean directIn : new boolean[] { false, true }) {
+                for (boolean directOut : new boolean[] { false, true })
+                    testRoundTrip(compressor, decompressor, data, directIn, directOut);
+            }
+        } finally {
+            compressor.close();
+            decompressor.close();
+        }
+    }
+
+    @Test
+    public void testSelectUnknown() {
+        Assert.assertSame(JavaCompressionBackend.INSTANCE, CompressionBackends.select("unknown"));
+        Assert.assertSame(JavaCompressionBackend.INSTANCE, CompressionBackends.get());
+    }
+
+    private static void testRoundTrip(PacketCompressor compressor, PacketDecompressor decompressor, byte[] data, boolean directIn, boolean directOut) throws DataFormatException {
+        ByteBuf uncompressed = allocate(directIn, data.length).writeBytes(data);
+        // Start small so the compressor has to expand the output buffer
+        ByteBuf compressed = allocate(directOut, 16);
+        ByteBuf decompressed = allocate(directIn, data.length);
+        try {
+            int length = compressor.compress(uncompressed, compressed, 6);
+            Assert.assertEquals(compressed.readableBytes(), length);
+            Assert.assertEquals(0, uncompressed.readerIndex());
+
+            decompressor.decompress(compressed, length, decompressed, data.length);
+            Assert.assertEquals(Unpooled.wrappedBuffer(data), decompressed);
+        } finally {
+            uncompressed.release();
+            compressed.release();
+            decompressed.release();
+        }
+    }
+
+    private static ByteBuf allocate(boolean direct, int capacity) {
+        return direct ? Unpooled.directBuffer(capacity) : Unpooled.buffer(capacity);
+    }
+}
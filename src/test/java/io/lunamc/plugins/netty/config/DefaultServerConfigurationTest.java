@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.util.Arrays;
 
 public class DefaultServerConfigurationTest {
 
@@ -31,5 +32,111 @@ public class DefaultServerConfigurationTest {
         }
         Assert.assertEquals(1234, configuration.getPort());
         Assert.assertEquals(12, configuration.getTimeout());
+        Assert.assertEquals(2, configuration.getAcceptors());
+        Assert.assertEquals(5000, configuration.getStatusCacheTtl());
+        Assert.assertEquals(0, configuration.getVirtualHostCacheTtl());
+        Assert.assertTrue(configuration.isFusedCodec());
+        Assert.assertEquals("jce", configuration.getCipherEngine());
+
+        ServerConfiguration.EventLoop eventLoop = configuration.getEventLoop();
+        Assert.assertEquals("nio", eventLoop.getTransport());
+        Assert.assertEquals(2, eventLoop.getBossThreads());
+        Assert.assertEquals(8, eventLoop.getWorkerThreads());
+        Assert.assertEquals(70, eventLoop.getIoRatio());
+        Assert.assertEquals("test-netty", eventLoop.getThreadNamePrefix());
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 5), eventLoop.getCpuAffinity());
+
+        ServerConfiguration.ChildOptions childOptions = configuration.getChildOptions();
+        Assert.assertFalse(childOptions.isTcpNoDelay());
+        Assert.assertTrue(childOptions.isKeepAlive());
+        Assert.assertEquals(65536, childOptions.getSendBufferSize());
+        Assert.assertEquals(0, childOptions.getReceiveBufferSize());
+        Assert.assertEquals(Boolean.TRUE, childOptions.getTcpQuickAck());
+        Assert.assertEquals(5000, childOptions.getTcpUserTimeout());
+        Assert.assertEquals(0, childOptions.getBusyPoll());
+
+        ServerConfiguration.Login login = configuration.getLogin();
+        Assert.assertEquals(3, login.getCryptoThreads());
+        Assert.assertEquals(128, login.getCryptoQueueSize());
+        Assert.assertEquals(16, login.getMaxConcurrentLogins());
+        Assert.assertEquals(256, login.getMaxQueuedLogins());
+        Assert.assertEquals(20, login.getQueueTimeout());
+        Assert.assertFalse(login.isPerAddressFairness());
+
+        ServerConfiguration.Session session = configuration.getSession();
+        Assert.assertEquals(2000, session.getRequestTimeout());
+        Assert.assertEquals(1, session.getMaxRetries());
+        Assert.assertEquals(95, session.getHedgePercentile());
+        Assert.assertEquals(10, session.getCircuitBreakerThreshold());
+        Assert.assertEquals("http://localhost:8080/hasJoined", session.getUrl());
+        Assert.assertEquals(32, session.getMaxConnections());
+        Assert.assertEquals(4, session.getPrewarmConnections());
+
+        ServerConfiguration.ConnectionThrottle connectionThrottle = configuration.getConnectionThrottle();
+        Assert.assertEquals(5, connectionThrottle.getRate());
+        Assert.assertEquals(8, connectionThrottle.getBurst());
+        Assert.assertEquals(4096, connectionThrottle.getMaxTrackedAddresses());
+        Assert.assertFalse(connectionThrottle.isExemptLocal());
+
+        ServerConfiguration.TrafficShaping trafficShaping = configuration.getTrafficShaping();
+        Assert.assertTrue(trafficShaping.isEnabled());
+        Assert.assertEquals(1048576, trafficShaping.getChannelWriteLimit());
+        Assert.assertEquals(65536, trafficShaping.getAddressReadLimit());
+        Assert.assertEquals(0, trafficShaping.getGlobalReadLimit());
+
+        ServerConfiguration.PacketCompression packetCompression = configuration.getPacketCompression();
+        Assert.assertEquals("java", packetCompression.getBackend());
+        Assert.assertTrue(packetCompression.isAdaptive());
+        Assert.assertEquals(20, packetCompression.getMinSavings());
+        Assert.assertEquals(8192, packetCompression.getMaxThreshold());
+        Assert.assertEquals(32768, packetCompression.getOffloadThreshold());
+        Assert.assertEquals(4, packetCompression.getOffloadThreads());
+    }
+
+    @Test
+    public void testDefaults() {
+        ServerConfiguration configuration = new DefaultServerConfiguration();
+        Assert.assertEquals(1, configuration.getAcceptors());
+        Assert.assertEquals(1000, configuration.getStatusCacheTtl());
+        Assert.assertEquals(5000, configuration.getVirtualHostCacheTtl());
+        Assert.assertFalse(configuration.isFusedCodec());
+        Assert.assertEquals("auto", configuration.getCipherEngine());
+
+        ServerConfiguration.EventLoop eventLoop = configuration.getEventLoop();
+        Assert.assertEquals("auto", eventLoop.getTransport());
+        Assert.assertEquals(1, eventLoop.getBossThreads());
+        Assert.assertEquals(0, eventLoop.getWorkerThreads());
+        Assert.assertEquals(50, eventLoop.getIoRatio());
+        Assert.assertTrue(eventLoop.getCpuAffinity().isEmpty());
+
+        ServerConfiguration.ChildOptions childOptions = configuration.getChildOptions();
+        Assert.assertTrue(childOptions.isTcpNoDelay());
+        Assert.assertNull(childOptions.getTcpQuickAck());
+
+        ServerConfiguration.Login login = configuration.getLogin();
+        Assert.assertTrue(login.getCryptoThreads() >= 1);
+        Assert.assertEquals(1024, login.getCryptoQueueSize());
+        Assert.assertEquals(0, login.getMaxConcurrentLogins());
+        Assert.assertTrue(login.isPerAddressFairness());
+
+        ServerConfiguration.Session session = configuration.getSession();
+        Assert.assertEquals(5000, session.getRequestTimeout());
+        Assert.assertEquals(0, session.getHedgePercentile());
+        Assert.assertEquals("https://sessionserver.mojang.com/session/minecraft/hasJoined", session.getUrl());
+        Assert.assertEquals(0, session.getPrewarmConnections());
+
+        ServerConfiguration.ConnectionThrottle connectionThrottle = configuration.getConnectionThrottle();
+        Assert.assertEquals(0, connectionThrottle.getRate());
+        Assert.assertTrue(connectionThrottle.isExemptLocal());
+
+        ServerConfiguration.TrafficShaping trafficShaping = configuration.getTrafficShaping();
+        Assert.assertFalse(trafficShaping.isEnabled());
+        Assert.assertEquals(1000, trafficShaping.getCheckInterval());
+
+        ServerConfiguration.PacketCompression packetCompression = configuration.getPacketCompression();
+        Assert.assertEquals("auto", packetCompression.getBackend());
+        Assert.assertFalse(packetCompression.isAdaptive());
+        Assert.assertEquals(10, packetCompression.getMinSavings());
+        Assert.assertEquals(0, packetCompression.getOffloadThreshold());
     }
 }
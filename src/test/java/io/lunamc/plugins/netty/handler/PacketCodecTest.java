@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Random;
+
+public class PacketCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        PacketCodec codec = new PacketCodec();
+        EmbeddedChannel channel = new EmbeddedChannel(codec);
+        assertRoundTrip(channel, 1);
+        assertRoundTrip(channel, 300);
+
+        codec.enableCompression(256, 6);
+        assertRoundTrip(channel, 1);
+        assertRoundTrip(channel, 255);
+        assertRoundTrip(channel, 256);
+        assertRoundTrip(channel, 100000);
+
+        codec.enableEncryption(new SecretKeySpec(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 }, "AES"));
+        assertRoundTrip(channel, 1);
+        assertRoundTrip(channel, 100000);
+        Assert.assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFragmentedFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new PacketCodec());
+        ByteBuf packet = packet(1000);
+        Assert.assertTrue(channel.writeOutbound(packet.retainedDuplicate()));
+        ByteBuf frame = channel.readOutbound();
+
+        // Feed the frame byte by byte so the length is split as well
+        while (frame.isReadable())
+            channel.writeInbound(frame.readRetainedSlice(1));
+        frame.release();
+        ByteBuf decoded = channel.readInbound();
+        Assert.assertEquals(packet, decoded);
+        decoded.release();
+        packet.release();
+        Assert.assertFalse(channel.finish());
+    }
+
+    private static void assertRoundTrip(EmbeddedChannel channel, int length) {
+        ByteBuf packet = packet(length);
+        Assert.assertTrue(channel.writeOutbound(packet.retainedDuplicate()));
+        ByteBuf frame = channel.readOutbound();
+        Assert.assertTrue(channel.writeInbound(frame));
+        ByteBuf decoded = channel.readInbound();
+        Assert.assertEquals(packet, decoded);
+        decoded.release();
+        packet.release();
+    }
+
+    private static ByteBuf packet(int length) {
+        // Half random, half repeated bytes so compression has something to do
+        byte[] bytes = new byte[length];
+        Random random = new Random(length);
+        for (int i = 0; i < length / 2; i++)
+            bytes[i] = (byte) random.nextInt();
+        return Unpooled.wrappedBuffer(bytes);
+    }
+}
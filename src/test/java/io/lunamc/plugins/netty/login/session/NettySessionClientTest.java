@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.session;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.lunamc.plugins.netty.config.DefaultServerConfiguration;
+import io.netty.util.CharsetUtil;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs session requests against a local stub server with slow and failing endpoints.
+ */
+public class NettySessionClientTest {
+
+    private static final int REQUEST_TIMEOUT = 500;
+    private static final long SLOW_RESPONSE = 3000;
+
+    private final AtomicInteger slowRequests = new AtomicInteger();
+    private final AtomicInteger flakyRequests = new AtomicInteger();
+    private final AtomicInteger slowOnceRequests = new AtomicInteger();
+    private final AtomicInteger fastRequests = new AtomicInteger();
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private ScheduledExecutorService scheduler;
+    private AsyncHttpClient client;
+    private DefaultServerConfiguration.DefaultSession config;
+    private ResilientRequestExecutor executor;
+
+    @Before
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", exchange -> {
+            slowRequests.incrementAndGet();
+            sleep(SLOW_RESPONSE);
+            respond(exchange, 200, "slow");
+        });
+        server.createContext("/flaky", exchange -> {
+            if (flakyRequests.incrementAndGet() == 1)
+                respond(exchange, 503, "");
+            else
+                respond(exchange, 200, "flaky");
+        });
+        server.createContext("/slow-once", exchange -> {
+            if (slowOnceRequests.incrementAndGet() == 1)
+                sleep(SLOW_RESPONSE);
+            respond(exchange, 200, "slow-once");
+        });
+        server.createContext("/fast", exchange -> {
+            fastRequests.incrementAndGet();
+            respond(exchange, 200, "fast");
+        });
+        server.createContext("/forbidden", exchange -> respond(exchange, 403, ""));
+        server.start();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        client = new DefaultAsyncHttpClient();
+        config = new DefaultServerConfiguration.DefaultSession();
+        config.setRequestTimeout(REQUEST_TIMEOUT);
+        config.setRetryBackoff(10);
+        executor = new ResilientRequestExecutor(() -> config, () -> scheduler);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        scheduler.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testTimeout() throws Throwable {
+        config.setMaxRetries(1);
+        try {
+            request("/slow").get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected timeout");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertEquals(2, slowRequests.get());
+    }
+
+    @Test
+    public void testRetryThenSuccess() throws Throwable {
+        Assert.assertEquals("flaky", request("/flaky").get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, flakyRequests.get());
+    }
+
+    @Test
+    public void testNotRetryable() throws Throwable {
+        try {
+            request("/forbidden").get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SessionException);
+            Assert.assertFalse(((SessionException) e.getCause()).isRetryable());
+        }
+    }
+
+    @Test
+    public void testHedge() throws Throwable {
+        config.setHedgePercentile(90);
+        config.setHedgeMinDelay(100);
+        // Record enough latencies to estimate the percentile
+        for (int i = 0; i < 20; i++)
+            Assert.assertEquals("fast", request("/fast").get(10, TimeUnit.SECONDS));
+
+        // Fast requests finish before the hedge would be sent
+        Thread.sleep(300);
+        Assert.assertEquals(20, fastRequests.get());
+
+        long start = System.nanoTime();
+        Assert.assertEquals("slow-once", request("/slow-once").get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < SLOW_RESPONSE);
+        Assert.assertEquals(2, slowOnceRequests.get());
+    }
+
+    private CompletableFuture<String> request(String path) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        return executor.execute(() -> NettySessionClient.request(client, url, config.getRequestTimeout(), Function.identity()));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(CharsetUtil.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.login.session;
+
+import io.lunamc.plugins.netty.config.DefaultServerConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResilientRequestExecutorTest {
+
+    private ScheduledExecutorService scheduler;
+    private DefaultServerConfiguration.DefaultSession config;
+    private ResilientRequestExecutor executor;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        config = new DefaultServerConfiguration.DefaultSession();
+        executor = new ResilientRequestExecutor(() -> config, () -> scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testRetryable() throws Throwable {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 3)
+                return failed(new SessionException("Unavailable", true));
+            return CompletableFuture.completedFuture("profile");
+        });
+        Assert.assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testNotRetryable() throws Throwable {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = executor.execute(() -> {
+            attempts.incrementAndGet();
+            return failed(new SessionException("Rejected", false));
+        });
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SessionException);
+        }
+        Assert.assertEquals(1, attempts.get());
+        Assert.assertFalse(executor.getCircuitBreaker().isOpen());
+    }
+
+    @Test
+    public void testHedgeCancelsLoser() throws Throwable {
+        config.setHedgePercentile(50);
+        config.setHedgeMinDelay(10);
+        for (int i = 0; i < 16; i++)
+            executor.getLatencyTracker().record(TimeUnit.MILLISECONDS.toNanos(1));
+
+        List<CompletableFuture<String>> requests = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = executor.execute(() -> {
+            CompletableFuture<String> request = new CompletableFuture<>();
+            requests.add(request);
+            if (requests.size() > 1)
+                request.complete("profile");
+            return request;
+        });
+        Assert.assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, requests.size());
+        Assert.assertTrue(requests.get(0).isCancelled());
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(circuitBreaker.tryAcquire(3, 60000));
+            circuitBreaker.onFailure(3);
+        }
+        Assert.assertFalse(circuitBreaker.tryAcquire(3, 60000));
+        // Probe is allowed once the open time elapsed
+        Assert.assertTrue(circuitBreaker.tryAcquire(3, 0));
+        Assert.assertFalse(circuitBreaker.tryAcquire(3, 0));
+        circuitBreaker.onSuccess();
+        Assert.assertTrue(circuitBreaker.tryAcquire(3, 60000));
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.netty;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class EventLoopTimerTest {
+
+    private EventLoop eventLoop;
+
+    @Before
+    public void setUp() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @After
+    public void tearDown() {
+        eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    public void testCancelWithinTick() throws Throwable {
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        AtomicReference<EventLoopTimer.Timeout> cancelled = new AtomicReference<>();
+        AtomicReference<EventLoopTimer.Timeout> cancelling = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        eventLoop.execute(() -> {
+            EventLoopTimer timer = EventLoopTimer.get(eventLoop);
+            // Both timeouts expire in the same tick, the later one is run first
+            cancelled.set(timer.schedule(() -> cancelledRan.set(true), 10, TimeUnit.MILLISECONDS));
+            cancelling.set(timer.schedule(() -> {
+                Assert.assertTrue(cancelled.get().cancel());
+                latch.countDown();
+            }, 10, TimeUnit.MILLISECONDS));
+        });
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        eventLoop.submit(() -> {
+            Assert.assertFalse(cancelledRan.get());
+            Assert.assertTrue(cancelled.get().isCancelled());
+            Assert.assertTrue(cancelling.get().isExpired());
+            Assert.assertEquals(0, EventLoopTimer.get(eventLoop).getPendingTimeouts());
+        }).sync();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class PingStatisticsTest {
+
+    @Test
+    public void testSmoothedConverges() {
+        PingStatistics statistics = new PingStatistics();
+        long now = System.nanoTime();
+        statistics.record(TimeUnit.MILLISECONDS.toNanos(100), now);
+        for (int i = 0; i < 100; i++)
+            statistics.record(TimeUnit.MILLISECONDS.toNanos(95), now);
+        Assert.assertEquals(95, statistics.getSmoothedRoundTripTime());
+        Assert.assertEquals(95, statistics.getLastRoundTripTime());
+    }
+
+    @Test
+    public void testHistogramDecays() {
+        PingStatistics statistics = new PingStatistics();
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++)
+            statistics.record(TimeUnit.MILLISECONDS.toNanos(500), now);
+        Assert.assertEquals(500, statistics.getPercentile(50, now));
+
+        // The latency improved a few minutes later
+        now += TimeUnit.MINUTES.toNanos(3);
+        for (int i = 0; i < 50; i++)
+            statistics.record(TimeUnit.MILLISECONDS.toNanos(20), now);
+        Assert.assertEquals(20, statistics.getPercentile(50, now));
+        Assert.assertEquals(150, statistics.getSamples());
+
+        Assert.assertEquals(-1, statistics.getPercentile(50, now + TimeUnit.HOURS.toNanos(2)));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.protocol;
+
+import io.lunamc.plugins.netty.network.ConnectionState;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PacketTablesTest {
+
+    @Test
+    public void testKeepAliveIds() {
+        assertKeepAlive(5, 0x00, 0x00);
+        assertKeepAlive(47, 0x00, 0x00);
+        assertKeepAlive(110, 0x1f, 0x0b);
+        assertKeepAlive(335, 0x1f, 0x0c);
+        assertKeepAlive(340, 0x1f, 0x0b);
+    }
+
+    @Test
+    public void testServerboundPackets() {
+        PacketTable table = PacketTables.get(340);
+        Assert.assertEquals(PacketType.HANDSHAKE, table.getServerboundPacket(ConnectionState.HANDSHAKE, 0x00));
+        Assert.assertEquals(PacketType.STATUS_PING_REQUEST, table.getServerboundPacket(ConnectionState.STATUS, 0x01));
+        Assert.assertEquals(PacketType.LOGIN_START, table.getServerboundPacket(ConnectionState.LOGIN, 0x00));
+        Assert.assertNull(table.getServerboundPacket(ConnectionState.LOGIN, 0x02));
+        Assert.assertNull(table.getServerboundPacket(ConnectionState.STATUS, -1));
+    }
+
+    @Test
+    public void testCompression() {
+        Assert.assertFalse(PacketTables.get(5).hasPacket(PacketType.LOGIN_SET_COMPRESSION));
+        Assert.assertEquals(0x03, PacketTables.get(47).getPacketId(PacketType.LOGIN_SET_COMPRESSION));
+    }
+
+    private static void assertKeepAlive(int protocolVersion, int clientbound, int serverbound) {
+        PacketTable table = PacketTables.get(protocolVersion);
+        Assert.assertEquals(clientbound, table.getPacketId(PacketType.PLAY_KEEP_ALIVE_REQUEST));
+        Assert.assertEquals(serverbound, table.getPacketId(PacketType.PLAY_KEEP_ALIVE_RESPONSE));
+        Assert.assertEquals(PacketType.PLAY_KEEP_ALIVE_RESPONSE, table.getServerboundPacket(ConnectionState.PLAY, serverbound));
+    }
+}
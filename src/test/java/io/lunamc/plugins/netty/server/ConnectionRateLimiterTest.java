@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testRefill() throws UnknownHostException {
+        ConnectionRateLimiter limiter = new ConnectionRateLimiter(16);
+        InetAddress address = InetAddress.getByName("192.0.2.1");
+        long now = 0;
+        Assert.assertTrue(limiter.tryAcquire(address, 2, 2, now));
+        Assert.assertTrue(limiter.tryAcquire(address, 2, 2, now));
+        Assert.assertFalse(limiter.tryAcquire(address, 2, 2, now));
+
+        // Half a second refills one token
+        now += SECOND / 2;
+        Assert.assertTrue(limiter.tryAcquire(address, 2, 2, now));
+        Assert.assertFalse(limiter.tryAcquire(address, 2, 2, now));
+
+        // The bucket never holds more than the burst
+        now += 10 * SECOND;
+        Assert.assertTrue(limiter.tryAcquire(address, 2, 2, now));
+        Assert.assertTrue(limiter.tryAcquire(address, 2, 2, now));
+        Assert.assertFalse(limiter.tryAcquire(address, 2, 2, now));
+    }
+
+    @Test
+    public void testEviction() throws UnknownHostException {
+        ConnectionRateLimiter limiter = new ConnectionRateLimiter(2);
+        InetAddress address = InetAddress.getByName("192.0.2.1");
+        Assert.assertTrue(limiter.tryAcquire(address, 0, 1, 0));
+        Assert.assertFalse(limiter.tryAcquire(address, 0, 1, 1));
+
+        // Other addresses evict the least recently used buckets of the small table
+        for (int i = 0; i < 64; i++)
+            Assert.assertTrue(limiter.tryAcquire(InetAddress.getByName("198.51.100." + i), 0, 1, 2 + i));
+        Assert.assertTrue(limiter.tryAcquire(address, 0, 1, 100));
+    }
+
+    @Test
+    public void testIpv6Prefix() throws UnknownHostException {
+        ConnectionRateLimiter limiter = new ConnectionRateLimiter(16);
+        Assert.assertTrue(limiter.tryAcquire(InetAddress.getByName("2001:db8:1:2::1"), 0, 1, 0));
+        Assert.assertFalse(limiter.tryAcquire(InetAddress.getByName("2001:db8:1:2:ffff::7"), 0, 1, 0));
+        Assert.assertTrue(limiter.tryAcquire(InetAddress.getByName("2001:db8:1:3::1"), 0, 1, 0));
+    }
+
+    @Test
+    public void testConcurrentAcquire() throws Exception {
+        // Contended updates of the same bucket must retry instead of granting tokens twice
+        ConnectionRateLimiter limiter = new ConnectionRateLimiter(16);
+        InetAddress address = InetAddress.getByName("192.0.2.1");
+        int burst = 1000;
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 500; j++) {
+                    if (limiter.tryAcquire(address, 0, burst, 0))
+                        acquired.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        Assert.assertEquals(burst, acquired.get());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2017 LunaMC.io
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.lunamc.plugins.netty.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+
+public class HexUtilsTest {
+
+    @Test
+    public void testToHexTwosComplement() throws Throwable {
+        // Examples of wiki.vg
+        Assert.assertEquals("4ed1f46bbe04bc756bcb17c0c7ce3e4632f06a48", hash("Notch"));
+        Assert.assertEquals("-7c9d5b0044c130109a5d7b5fb5c317c02b4e28c1", hash("jeb_"));
+        Assert.assertEquals("88e16a1019277b15d58faf0541e11910eb756f6", hash("simon"));
+
+        Assert.assertEquals("0", HexUtils.toHexTwosComplement(new byte[] { 0, 0 }));
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[1 + random.nextInt(20)];
+            random.nextBytes(bytes);
+            Assert.assertEquals(new BigInteger(bytes).toString(16), HexUtils.toHexTwosComplement(bytes));
+        }
+    }
+
+    private static String hash(String str) throws Throwable {
+        return HexUtils.toHexTwosComplement(MessageDigest.getInstance("SHA1").digest(str.getBytes(StandardCharsets.UTF_8)));
+    }
+}